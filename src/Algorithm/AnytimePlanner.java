@@ -0,0 +1,308 @@
+package Algorithm;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.logging.Logger;
+
+import Map.*;
+import Robot.Command;
+import Robot.RobotConstants;
+
+/**
+ * Anytime Repairing A* (ARA*) over the (cell, direction) states of the heading search, optionally through a waypoint.
+ * The first search inflates the heuristic by INITIAL_EPSILON, which finds a path (at most epsilon times the fastest)
+ * after few expansions. Each following search lowers epsilon and reuses the states already reached, until epsilon is
+ * 1 and the path is the fastest.
+ *
+ * plan returns the best path found within the time budget, and leaves a background thread improving it.
+ * finish stops the thread and returns the best path found so far, to be called when the robot starts moving.
+ * The searches read the movable cells from a snapshot taken by plan, so the map may change while the thread runs;
+ * the path is for the map as it was when plan was called.
+ */
+public class AnytimePlanner {
+
+    private static final Logger LOGGER = Logger.getLogger(AnytimePlanner.class.getName());
+
+    private static final int NO_OF_PHASES = 2;   //before and after reaching the waypoint
+
+    private static final double INITIAL_EPSILON = 3.0;
+    private static final double EPSILON_STEP = 0.5;
+
+    private Map map;
+    private int width;
+    private int height;
+    private BitSet movable;     //snapshot of the cells the robot can move to, read by the searches
+    private long movableAt = -1;    //change count of the map when the snapshot was taken
+    private HeadingStates states;   //states of one phase, moving through the snapshot
+    private int noOfCellStates;
+    private Point goal;
+    private Point wayPoint;
+    private int goalId;
+    private int wayPointId;
+
+    //Search state, only valid when the state is visited in the current search
+    private double[] gCost;
+    private int[] parent;
+    private SearchSpace search;
+    private IndexedMinHeap openList;
+    private BitSet closedList;
+    private BitSet inconsSet;
+    private ArrayList<Integer> inconsList; //states improved after being closed, reopened in the next search
+    private double epsilon;
+    private int bestGoalState;
+
+    private long deadline;
+    private volatile boolean stopRequested;
+    private Thread worker;
+
+    //Best path published so far
+    private ArrayList<Cell> bestPath;
+    private ArrayList<Command> bestCommands;
+    private double bestEpsilon;
+
+    public AnytimePlanner(Map map) {
+        this.map = map;
+        width = map.getWidth();
+        height = map.getHeight();
+        movable = new BitSet(height * width);
+        states = new HeadingStates(map, movable::get);
+        noOfCellStates = states.size();
+        int noOfStates = noOfCellStates * NO_OF_PHASES;
+        gCost = new double[noOfStates];
+        parent = new int[noOfStates];
+        search = new SearchSpace(noOfStates);
+        openList = search.getOpenList();
+        closedList = search.getClosedList();
+        inconsSet = new BitSet(noOfStates);
+        inconsList = new ArrayList<Integer>();
+    }
+
+    /**
+     * Plan from start (facing initDir) to goal, through wayPoint if it is not null. Returns the best path found
+     * within budgetMicros, or when the first path is found if that takes longer; null if there is no path.
+     * Unless the path is already the fastest, it keeps improving in the background until finish is called.
+     */
+    public ArrayList<Cell> plan(Point start, Point wayPoint, Point goal, Direction initDir, long budgetMicros) {
+        finish();
+        takeMovableSnapshot();
+        this.goal = goal;
+        this.wayPoint = wayPoint;
+        goalId = cellId(goal.y, goal.x);
+        wayPointId = wayPoint == null ? -1 : cellId(wayPoint.y, wayPoint.x);
+        deadline = System.nanoTime() + budgetMicros * 1000;
+        stopRequested = false;
+        synchronized (this) {
+            bestPath = null;
+            bestCommands = null;
+            bestEpsilon = RobotConstants.INFINITE_COST;
+        }
+
+        search.reset();
+        inconsSet.clear();
+        inconsList.clear();
+        epsilon = INITIAL_EPSILON;
+        bestGoalState = -1;
+
+        int startId = cellId(start.y, start.x);
+        //Starting on the waypoint already counts as reaching it
+        int startState = stateId(startId, initDir, wayPoint == null || startId == wayPointId ? 1 : 0);
+        setG(startState, 0, -1);
+        openList.push(startState, getKey(startState));
+        if (isGoal(startState)) {
+            bestGoalState = startState;
+        }
+
+        if (improve(true)) {
+            LOGGER.info(String.format("Anytime planner finished within budget, epsilon %.1f", bestEpsilon));
+        }
+        else {
+            worker = new Thread(() -> improve(false), "AnytimePlanner");
+            worker.setDaemon(true);
+            worker.start();
+        }
+        return getBestPath();
+    }
+
+    //Stop improving the path and return the best path found
+    public ArrayList<Cell> finish() {
+        if (worker != null) {
+            stopRequested = true;
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+            LOGGER.info(String.format("Anytime planner stopped, epsilon %.1f", bestEpsilon));
+        }
+        return getBestPath();
+    }
+
+    public synchronized ArrayList<Cell> getBestPath() {
+        return bestPath == null ? null : new ArrayList<Cell>(bestPath);
+    }
+
+    public synchronized ArrayList<Command> getCommands() {
+        return bestCommands == null ? null : new ArrayList<Command>(bestCommands);
+    }
+
+    //Bound on how many times slower than the fastest path the best path can be
+    public synchronized double getEpsilon() {
+        return bestEpsilon;
+    }
+
+    //Run searches with decreasing epsilon; returns true when done, false if interrupted by the budget or finish
+    private boolean improve(boolean foreground) {
+        while (true) {
+            if (!improvePath(foreground)) {
+                return false;
+            }
+            if (bestGoalState == -1) {
+                LOGGER.warning("Anytime planner cannot find a path");
+                return true;
+            }
+            publish();
+            if (epsilon <= 1) {
+                return true;
+            }
+            epsilon = Math.max(1, epsilon - EPSILON_STEP);
+            reopen();
+        }
+    }
+
+    //Expand states until no state in the open list can lead to a cheaper path to the goal
+    private boolean improvePath(boolean foreground) {
+        while (!openList.isEmpty() && (bestGoalState == -1 || openList.peekKey() < gCost[bestGoalState])) {
+            if (foreground ? bestPath != null && System.nanoTime() > deadline : stopRequested) {
+                return false;
+            }
+            int cur = openList.pop();
+            closedList.set(cur);
+            if (isGoal(cur)) {   //no need to go further than the goal
+                continue;
+            }
+            int phase = cur / noOfCellStates;
+            int cellState = cur % noOfCellStates;
+            int next = states.moveForward(cellState);
+            if (next != -1) {
+                int nPhase = HeadingStates.getCellId(next) == wayPointId ? 1 : phase;
+                relax(cur, nPhase * noOfCellStates + next, RobotConstants.MOVE_COST);
+            }
+            relax(cur, phase * noOfCellStates + HeadingStates.turnRight(cellState), RobotConstants.TURN_COST);
+            relax(cur, phase * noOfCellStates + HeadingStates.turnLeft(cellState), RobotConstants.TURN_COST);
+        }
+        return true;
+    }
+
+    private void relax(int cur, int next, double edgeCost) {
+        double newG = gCost[cur] + edgeCost;
+        if (newG < getG(next)) {
+            setG(next, newG, cur);
+            if (isGoal(next) && (bestGoalState == -1 || newG < gCost[bestGoalState])) {
+                bestGoalState = next;
+            }
+            if (!closedList.get(next)) {
+                openList.pushOrDecrease(next, getKey(next));
+            }
+            else if (!inconsSet.get(next)) {
+                inconsSet.set(next);
+                inconsList.add(next);
+            }
+        }
+    }
+
+    //Move the inconsistent states back to the open list and recompute every key with the new epsilon
+    private void reopen() {
+        ArrayList<Integer> states = new ArrayList<Integer>(inconsList);
+        while (!openList.isEmpty()) {
+            states.add(openList.pop());
+        }
+        for (int state : states) {
+            openList.push(state, getKey(state));
+        }
+        inconsList.clear();
+        inconsSet.clear();
+        closedList.clear();
+    }
+
+    //Copy which cells are movable, unless the map has not changed since the last copy
+    private void takeMovableSnapshot() {
+        if (movableAt == map.getChangeCount()) {
+            return;
+        }
+        movableAt = map.getChangeCount();
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                movable.set(cellId(row, col), map.checkValidMove(row, col));
+            }
+        }
+    }
+
+    //Build the path and commands to the best goal state and make them the best path
+    private void publish() {
+        ArrayList<Integer> pathStates = new ArrayList<Integer>();
+        for (int state = bestGoalState; state != -1; state = parent[state]) {
+            pathStates.add(state % noOfCellStates);
+        }
+        Collections.reverse(pathStates);
+        ArrayList<Command> commands = new ArrayList<Command>();
+        ArrayList<Cell> path = states.getPath(pathStates, commands);
+        synchronized (this) {
+            bestPath = path;
+            bestCommands = commands;
+            bestEpsilon = epsilon;
+        }
+        LOGGER.info(String.format("Anytime planner path cost %.0f, epsilon %.1f", gCost[bestGoalState], epsilon));
+    }
+
+    //Goal cell, after the waypoint
+    private boolean isGoal(int state) {
+        return state / noOfCellStates == 1 && HeadingStates.getCellId(state % noOfCellStates) == goalId;
+    }
+
+    private double getKey(int state) {
+        return gCost[state] + epsilon * calculateH(state);
+    }
+
+    //Manhattan distance plus minimum turns to the goal, through the waypoint if not reached yet
+    private double calculateH(int state) {
+        int phase = state / noOfCellStates;
+        int cellState = state % noOfCellStates;
+        int id = HeadingStates.getCellId(cellState);
+        int row = id / width;
+        int col = id % width;
+        Direction dir = HeadingStates.getDir(cellState);
+        if (phase == 1) {
+            return estimate(row, col, dir, goal);
+        }
+        return estimate(row, col, dir, wayPoint)
+                + RobotConstants.MOVE_COST * (Math.abs(goal.y - wayPoint.y) + Math.abs(goal.x - wayPoint.x));
+    }
+
+    private double estimate(int row, int col, Direction dir, Point target) {
+        int rowDiff = target.y - row;
+        int colDiff = target.x - col;
+        return RobotConstants.MOVE_COST * (Math.abs(rowDiff) + Math.abs(colDiff))
+                + RobotConstants.TURN_COST * TurnHeuristic.getMinTurns(rowDiff, colDiff, dir);
+    }
+
+    private double getG(int state) {
+        return search.isVisited(state) ? gCost[state] : RobotConstants.INFINITE_COST;
+    }
+
+    private void setG(int state, double g, int parentState) {
+        search.visit(state);
+        gCost[state] = g;
+        parent[state] = parentState;
+    }
+
+    private int cellId(int row, int col) {
+        return row * width + col;
+    }
+
+    private int stateId(int cellId, Direction dir, int phase) {
+        return phase * noOfCellStates + HeadingStates.stateId(cellId, dir);
+    }
+}
@@ -0,0 +1,228 @@
+package Algorithm;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.logging.Logger;
+
+import Map.*;
+import Robot.Command;
+import Robot.RobotConstants;
+
+import static java.lang.Math.*;
+
+/**
+ * Bidirectional A* over the same (cell, direction) states and costs as the heading search. One frontier grows
+ * forwards from the start state and one backwards from the four states of the goal cell, until they meet.
+ * Both sides use the average potential p(s) = (hGoal(s) - hStart(s)) / 2 (the backward side uses -p), where hGoal and
+ * hStart are the Manhattan distance plus minimum turns to the goal and from the start. Both are consistent, so the
+ * search can stop as soon as the two smallest keys add up to the best meeting cost.
+ */
+public class BidirectionalSearch {
+
+    private static final Logger LOGGER = Logger.getLogger(BidirectionalSearch.class.getName());
+
+    private Map map;
+    private int width;
+    private HeadingStates states;
+    private Point start;
+    private Point goal;
+    private int goalId;
+
+    //Search state of each side, only valid when the visited stamp equals the current generation
+    private double[] gForward;
+    private double[] gBackward;
+    private int[] parentForward;   //previous state on the path from the start
+    private int[] parentBackward;  //next state on the path to the goal
+    private SearchSpace forward;
+    private SearchSpace backward;
+    private IndexedMinHeap openForward;
+    private IndexedMinHeap openBackward;
+    private BitSet closedForward;
+    private BitSet closedBackward;
+
+    private double bestCost;    //cost of the best path through a state reached by both sides
+    private int meetState;
+
+    private ArrayList<Command> commands;
+
+    public BidirectionalSearch(Map map) {
+        this.map = map;
+        width = map.getWidth();
+        states = new HeadingStates(map);
+        int noOfStates = states.size();
+        gForward = new double[noOfStates];
+        gBackward = new double[noOfStates];
+        parentForward = new int[noOfStates];
+        parentBackward = new int[noOfStates];
+        forward = new SearchSpace(noOfStates);
+        backward = new SearchSpace(noOfStates);
+        openForward = forward.getOpenList();
+        openBackward = backward.getOpenList();
+        closedForward = forward.getClosedList();
+        closedBackward = backward.getClosedList();
+    }
+
+    /**
+     * Find the path with the minimum move and turn cost from start (facing initDir) to goal.
+     * Returns null if there is no path. The commands to execute the path can be read with getCommands.
+     */
+    public ArrayList<Cell> findPath(Point start, Point goal, Direction initDir) {
+        this.start = start;
+        this.goal = goal;
+        goalId = map.getCellId(goal.y, goal.x);
+        resetSearch();
+
+        int startState = HeadingStates.stateId(map.getCellId(start.y, start.x), initDir);
+        setForward(startState, 0, -1);
+        openForward.push(startState, getPotential(startState));
+        for (Direction dir : Direction.values()) {
+            int goalState = HeadingStates.stateId(goalId, dir);
+            setBackward(goalState, 0, -1);
+            openBackward.push(goalState, -getPotential(goalState));
+            if (goalState == startState) {
+                bestCost = 0;
+                meetState = startState;
+            }
+        }
+
+        int expanded = 0;
+        while (!openForward.isEmpty() && !openBackward.isEmpty()
+                && openForward.peekKey() + openBackward.peekKey() < bestCost) {
+            expanded++;
+            if (openForward.peekKey() <= openBackward.peekKey()) {
+                expandForward(openForward.pop());
+            }
+            else {
+                expandBackward(openBackward.pop());
+            }
+        }
+        LOGGER.info(String.format("Bidirectional search expanded %d states", expanded));
+
+        if (meetState == -1) {
+            commands = null;
+            return null;
+        }
+        return getPath(meetState);
+    }
+
+    //Commands to execute the last path found
+    public ArrayList<Command> getCommands() {
+        return commands == null ? null : new ArrayList<Command>(commands);
+    }
+
+    private void resetSearch() {
+        forward.reset();
+        backward.reset();
+        bestCost = RobotConstants.INFINITE_COST;
+        meetState = -1;
+    }
+
+    private void expandForward(int state) {
+        closedForward.set(state);
+        int next = states.moveForward(state);
+        if (next != -1) {
+            relaxForward(state, next, RobotConstants.MOVE_COST);
+        }
+        relaxForward(state, HeadingStates.turnRight(state), RobotConstants.TURN_COST);
+        relaxForward(state, HeadingStates.turnLeft(state), RobotConstants.TURN_COST);
+    }
+
+    //Follow the edges into the state backwards
+    private void expandBackward(int state) {
+        closedBackward.set(state);
+        int prev = states.moveBackward(state);
+        if (prev != -1 && states.isMovable(HeadingStates.getCellId(state))) {
+            relaxBackward(state, prev, RobotConstants.MOVE_COST);
+        }
+        relaxBackward(state, HeadingStates.turnRight(state), RobotConstants.TURN_COST);
+        relaxBackward(state, HeadingStates.turnLeft(state), RobotConstants.TURN_COST);
+    }
+
+    private void relaxForward(int cur, int next, double edgeCost) {
+        if (closedForward.get(next)) {
+            return;
+        }
+        double newG = gForward[cur] + edgeCost;
+        if (newG < getForward(next)) {
+            setForward(next, newG, cur);
+            openForward.pushOrDecrease(next, newG + getPotential(next));
+            updateMeeting(next);
+        }
+    }
+
+    private void relaxBackward(int cur, int prev, double edgeCost) {
+        if (closedBackward.get(prev)) {
+            return;
+        }
+        double newG = gBackward[cur] + edgeCost;
+        if (newG < getBackward(prev)) {
+            setBackward(prev, newG, cur);
+            openBackward.pushOrDecrease(prev, newG - getPotential(prev));
+            updateMeeting(prev);
+        }
+    }
+
+    //Keep the cheapest path through a state reached from both sides
+    private void updateMeeting(int state) {
+        double cost = getForward(state) + getBackward(state);
+        if (cost < bestCost) {
+            bestCost = cost;
+            meetState = state;
+        }
+    }
+
+    //Average of the forward heuristic to the goal and the backward heuristic to the start
+    private double getPotential(int state) {
+        int id = HeadingStates.getCellId(state);
+        Direction dir = HeadingStates.getDir(state);
+        int row = id / width;
+        int col = id % width;
+        int rowDiff = goal.y - row;
+        int colDiff = goal.x - col;
+        double toGoal = RobotConstants.MOVE_COST * (abs(rowDiff) + abs(colDiff))
+                + RobotConstants.TURN_COST * TurnHeuristic.getMinTurns(rowDiff, colDiff, dir);
+        //A path from the start arriving facing dir has as many turns as the reversed path leaving facing the opposite way
+        int startRowDiff = start.y - row;
+        int startColDiff = start.x - col;
+        double fromStart = RobotConstants.MOVE_COST * (abs(startRowDiff) + abs(startColDiff))
+                + RobotConstants.TURN_COST * TurnHeuristic.getMinTurns(startRowDiff, startColDiff, Direction.getOpposite(dir));
+        return (toGoal - fromStart) / 2;
+    }
+
+    //Join the forward path to the meeting state with the backward path from it, building the cells and commands
+    private ArrayList<Cell> getPath(int meet) {
+        ArrayList<Integer> pathStates = new ArrayList<Integer>();
+        for (int state = meet; state != -1; state = parentForward[state]) {
+            pathStates.add(state);
+        }
+        Collections.reverse(pathStates);
+        for (int state = parentBackward[meet]; state != -1; state = parentBackward[state]) {
+            pathStates.add(state);
+        }
+
+        commands = new ArrayList<Command>();
+        return states.getPath(pathStates, commands);
+    }
+
+    private double getForward(int state) {
+        return forward.isVisited(state) ? gForward[state] : RobotConstants.INFINITE_COST;
+    }
+
+    private double getBackward(int state) {
+        return backward.isVisited(state) ? gBackward[state] : RobotConstants.INFINITE_COST;
+    }
+
+    private void setForward(int state, double g, int parentState) {
+        forward.visit(state);
+        gForward[state] = g;
+        parentForward[state] = parentState;
+    }
+
+    private void setBackward(int state, double g, int nextState) {
+        backward.visit(state);
+        gBackward[state] = g;
+        parentBackward[state] = nextState;
+    }
+}
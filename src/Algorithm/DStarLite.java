@@ -0,0 +1,272 @@
+package Algorithm;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.logging.Logger;
+
+import Map.*;
+import Robot.Command;
+import Robot.RobotConstants;
+
+import static java.lang.Math.*;
+
+/**
+ * D* Lite over the same (cell, direction) states as the heading search of FastestPath.
+ * The search runs backwards from the goal, so g of a state is its cost to the goal. While the goal stays the same,
+ * the next search only re-evaluates the states next to the cells changed in the map since the previous search
+ * (read from the map change log) and repairs the previous search tree from there, instead of starting from scratch.
+ * A new goal, or a reset of the whole map, starts a new search.
+ */
+public class DStarLite {
+
+    private static final Logger LOGGER = Logger.getLogger(DStarLite.class.getName());
+
+    private Map map;
+    private int width;
+    private HeadingStates states;
+    private int noOfStates;
+
+    //Cost to goal of each state and its one step lookahead, only valid when the visited stamp equals the generation
+    private double[] g;
+    private double[] rhs;
+    private SearchSpace search;
+
+    /**
+     * Inconsistent states keyed by [k1, k2], packed into one double as k1 * keyScale + k2.
+     * k2 is a path cost, which is always below keyScale, so the packed keys keep the lexicographic order.
+     */
+    private IndexedMinHeap openList;
+    private double keyScale;
+    private double km; //sum of the heuristic between successive start states
+
+    private int goalId = -1; //goal cell of the current search tree, -1 if none
+    private int lastStart;
+    private long changesSeen;
+
+    private ArrayList<Command> commands;
+
+    public DStarLite(Map map) {
+        this.map = map;
+        width = map.getWidth();
+        states = new HeadingStates(map);
+        noOfStates = states.size();
+        g = new double[noOfStates];
+        rhs = new double[noOfStates];
+        search = new SearchSpace(noOfStates);
+        openList = search.getOpenList();
+        keyScale = 2 * noOfStates * (RobotConstants.MOVE_COST + RobotConstants.TURN_COST);
+    }
+
+    /**
+     * Find the path with the minimum move and turn cost from start (facing initDir) to goal.
+     * Returns null if there is no path. The commands to execute the path can be read with getCommands.
+     */
+    public ArrayList<Cell> findPath(Point start, Point goal, Direction initDir) {
+        int startState = HeadingStates.stateId(map.getCellId(start.y, start.x), initDir);
+        int goalCell = map.getCellId(goal.y, goal.x);
+
+        if (goalCell != goalId || !updateChangedCells(startState)) {
+            initialize(goalCell, startState);
+        }
+        int expanded = computeShortestPath(startState);
+        LOGGER.info(String.format("D* Lite expanded %d states", expanded));
+
+        if (getG(startState) >= RobotConstants.INFINITE_COST) {
+            commands = null;
+            return null;
+        }
+        return extractPath(startState);
+    }
+
+    //Commands to execute the last path found
+    public ArrayList<Command> getCommands() {
+        return commands == null ? null : new ArrayList<Command>(commands);
+    }
+
+    //Start a new search tree for the goal cell
+    private void initialize(int goal, int startState) {
+        search.reset();
+        km = 0;
+        goalId = goal;
+        lastStart = startState;
+        changesSeen = map.getChangeCount();
+        for (Direction dir : Direction.values()) {
+            int s = HeadingStates.stateId(goal, dir);
+            setRhs(s, 0);
+            openList.push(s, calculateKey(s));
+        }
+    }
+
+    /**
+     * Move the start of the search tree and re-evaluate the states whose edges changed since the last search.
+     * Returns false if the changes are no longer in the map change log, or the whole map was reset.
+     */
+    private boolean updateChangedCells(int startState) {
+        long changeCount = map.getChangeCount();
+        for (long change = changesSeen; change < changeCount; change++) {
+            if (map.getChangedCellId(change) == Map.ALL_CELLS) {
+                return false;
+            }
+        }
+        km += calculateH(lastStart, startState);
+        lastStart = startState;
+        for (long change = changesSeen; change < changeCount; change++) {
+            updateCell(map.getChangedCellId(change));
+        }
+        changesSeen = changeCount;
+        return true;
+    }
+
+    //Only forward edges into a cell depend on the cell, so re-evaluate the states next to it facing the cell
+    private void updateCell(int id) {
+        for (Direction dir : Direction.values()) {
+            int prev = states.moveBackward(HeadingStates.stateId(id, dir));
+            if (prev != -1) {
+                updateVertex(prev);
+            }
+        }
+    }
+
+    //Expand states until the start state is consistent and no state with a lower key is left
+    private int computeShortestPath(int startState) {
+        int expanded = 0;
+        while (!openList.isEmpty()
+                && (openList.peekKey() < calculateKey(startState) || getRhs(startState) != getG(startState))) {
+            int u = openList.peek();
+            double kOld = openList.peekKey();
+            double kNew = calculateKey(u);
+            expanded++;
+            if (kOld < kNew) {
+                openList.update(u, kNew);
+            }
+            else if (getG(u) > getRhs(u)) {
+                openList.pop();
+                setG(u, getRhs(u));
+                updatePredecessors(u);
+            }
+            else {
+                openList.pop();
+                setG(u, RobotConstants.INFINITE_COST);
+                updateVertex(u);
+                updatePredecessors(u);
+            }
+        }
+        return expanded;
+    }
+
+    //Re-evaluate every state with an edge into the state
+    private void updatePredecessors(int s) {
+        updateVertex(HeadingStates.turnRight(s));
+        updateVertex(HeadingStates.turnLeft(s));
+        int prev = states.moveBackward(s);
+        if (prev != -1) {
+            updateVertex(prev);
+        }
+    }
+
+    //Recompute the one step lookahead of a state and put it in the open list if it is inconsistent
+    private void updateVertex(int s) {
+        if (HeadingStates.getCellId(s) != goalId) {
+            setRhs(s, bestSuccessorCost(s));
+        }
+        openList.remove(s);
+        if (getG(s) != getRhs(s)) {
+            openList.push(s, calculateKey(s));
+        }
+    }
+
+    //Lowest edge cost + cost to goal over the successors of a state
+    private double bestSuccessorCost(int s) {
+        double best = RobotConstants.INFINITE_COST;
+        best = min(best, RobotConstants.TURN_COST + getG(HeadingStates.turnRight(s)));
+        best = min(best, RobotConstants.TURN_COST + getG(HeadingStates.turnLeft(s)));
+        int next = states.moveForward(s);
+        if (next != -1) {
+            best = min(best, RobotConstants.MOVE_COST + getG(next));
+        }
+        return min(best, RobotConstants.INFINITE_COST);
+    }
+
+    //Follow the cheapest successors from the start state to the goal cell
+    private ArrayList<Cell> extractPath(int startState) {
+        ArrayList<Cell> path = new ArrayList<Cell>();
+        commands = new ArrayList<Command>();
+        int s = startState;
+        while (HeadingStates.getCellId(s) != goalId) {
+            int right = HeadingStates.turnRight(s);
+            int left = HeadingStates.turnLeft(s);
+            double forwardCost = RobotConstants.INFINITE_COST;
+            int next = states.moveForward(s);
+            if (next != -1) {
+                forwardCost = RobotConstants.MOVE_COST + getG(next);
+            }
+            double rightCost = RobotConstants.TURN_COST + getG(right);
+            double leftCost = RobotConstants.TURN_COST + getG(left);
+
+            if (forwardCost <= rightCost && forwardCost <= leftCost && forwardCost < RobotConstants.INFINITE_COST) {
+                s = next;
+                path.add(map.getCellById(HeadingStates.getCellId(next)));
+                commands.add(Command.FORWARD);
+            }
+            else if (rightCost <= leftCost && rightCost < RobotConstants.INFINITE_COST) {
+                s = right;
+                commands.add(Command.TURN_RIGHT);
+            }
+            else if (leftCost < RobotConstants.INFINITE_COST) {
+                s = left;
+                commands.add(Command.TURN_LEFT);
+            }
+            else {
+                LOGGER.warning("D* Lite search tree is broken, no successor leads to the goal");
+                commands = null;
+                return null;
+            }
+            if (commands.size() > noOfStates) {
+                LOGGER.warning("D* Lite search tree is broken, path does not reach the goal");
+                commands = null;
+                return null;
+            }
+        }
+        return path;
+    }
+
+    private double calculateKey(int s) {
+        double m = min(getG(s), getRhs(s));
+        return (m + calculateH(lastStart, s) + km) * keyScale + m;
+    }
+
+    //Manhattan distance between the cells of two states
+    private double calculateH(int a, int b) {
+        int idA = HeadingStates.getCellId(a);
+        int idB = HeadingStates.getCellId(b);
+        return RobotConstants.MOVE_COST * (abs(idA / width - idB / width)
+                + abs(idA % width - idB % width));
+    }
+
+    private double getG(int s) {
+        return search.isVisited(s) ? g[s] : RobotConstants.INFINITE_COST;
+    }
+
+    private double getRhs(int s) {
+        return search.isVisited(s) ? rhs[s] : RobotConstants.INFINITE_COST;
+    }
+
+    private void setG(int s, double value) {
+        stamp(s);
+        g[s] = value;
+    }
+
+    private void setRhs(int s, double value) {
+        stamp(s);
+        rhs[s] = value;
+    }
+
+    //First use of a state in this generation, both values start at infinity
+    private void stamp(int s) {
+        if (!search.isVisited(s)) {
+            search.visit(s);
+            g[s] = RobotConstants.INFINITE_COST;
+            rhs[s] = RobotConstants.INFINITE_COST;
+        }
+    }
+}
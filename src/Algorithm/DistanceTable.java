@@ -0,0 +1,251 @@
+package Algorithm;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import Map.*;
+import Robot.Command;
+import Robot.RobotConstants;
+
+/**
+ * Precomputed cost and next move from every (cell, direction) state to every cell the robot can move to,
+ * using the same move and turn costs as the heading search. Built with one backward Dijkstra per target cell,
+ * after which a path query is a walk along the stored next moves, O(path length) with no search.
+ * Only the movable cells are numbered, so the table has 4 * n * n entries for n movable cells.
+ * The table is only valid for the map it was built from; isStale reports any change logged in the map since.
+ *
+ * The table grows with the square of the number of movable cells, so it is only built for up to MAX_CELLS of them
+ * (check with fits); larger arenas have to search. Costs are stored as shorts, which MAX_CELLS keeps them within.
+ */
+public class DistanceTable implements PathCost {
+
+    private static final Logger LOGGER = Logger.getLogger(DistanceTable.class.getName());
+
+    private static final int NO_OF_DIR = HeadingStates.NO_OF_DIR;
+    private static final short UNREACHABLE = -1;
+
+    //4 * MAX_CELLS^2 entries of 3 bytes, about 12 MB. A fastest path enters each state at most once, so no cost is above
+    //4 * MAX_CELLS * TURN_COST, which fits in a short
+    public static final int MAX_CELLS = 1024;
+
+    //Next move of a state towards a target
+    private static final byte NO_MOVE = -1;
+    private static final byte MOVE_FORWARD = 0;
+    private static final byte MOVE_RIGHT = 1;
+    private static final byte MOVE_LEFT = 2;
+
+    private Map map;
+    private int width;
+    private long builtAt;   //map change count when the table was built
+
+    private int[] compactId;    //compact id of each cell id, -1 if the robot cannot move to the cell
+    private int[] cellIds;      //cell id of each compact id
+    private int noOfCells;
+    private int noOfStates;
+
+    //Indexed by target * noOfStates + state
+    private short[] dist;
+    private byte[] next;
+
+    private ArrayList<Command> commands;
+
+    public DistanceTable(Map map) {
+        this.map = map;
+        width = map.getWidth();
+        build();
+    }
+
+    //Check if the table can be built for the map, i.e. it has at most MAX_CELLS movable cells
+    public static boolean fits(Map map) {
+        int count = 0;
+        for (int row = 0; row < map.getHeight(); row++) {
+            for (int col = 0; col < map.getWidth(); col++) {
+                if (map.checkValidMove(row, col) && ++count > MAX_CELLS) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    //Check if the map has changed since the table was built
+    public boolean isStale() {
+        return map.getChangeCount() != builtAt;
+    }
+
+    //Number the movable cells and run a backward Dijkstra from each of them
+    public void build() {
+        long startTime = System.currentTimeMillis();
+        builtAt = map.getChangeCount();
+
+        int total = map.getHeight() * map.getWidth();
+        compactId = new int[total];
+        cellIds = new int[total];
+        noOfCells = 0;
+        for (int id = 0; id < total; id++) {
+            if (map.checkValidMove(id / width, id % width)) {
+                compactId[id] = noOfCells;
+                cellIds[noOfCells++] = id;
+            }
+            else {
+                compactId[id] = -1;
+            }
+        }
+        if (noOfCells > MAX_CELLS) {
+            throw new IllegalArgumentException(String.format("Distance table for %d cells is over the limit of %d", noOfCells, MAX_CELLS));
+        }
+        noOfStates = noOfCells * NO_OF_DIR;
+        //below MAX_CELLS every index fits in an int
+        long entries = (long) noOfCells * noOfStates;
+        dist = new short[(int) entries];
+        next = new byte[(int) entries];
+        Arrays.fill(dist, UNREACHABLE);
+        Arrays.fill(next, NO_MOVE);
+
+        IndexedMinHeap openList = new IndexedMinHeap(noOfStates);
+        for (int target = 0; target < noOfCells; target++) {
+            buildTarget(target, openList);
+        }
+        LOGGER.info(String.format("Distance table for %d cells built in %d ms", noOfCells, System.currentTimeMillis() - startTime));
+    }
+
+    //Cost to the target from every state, relaxing the edges backwards from the states of the target cell
+    private void buildTarget(int target, IndexedMinHeap openList) {
+        int base = target * noOfStates;
+        for (int dir = 0; dir < NO_OF_DIR; dir++) {
+            dist[base + target * NO_OF_DIR + dir] = 0;
+            openList.push(target * NO_OF_DIR + dir, 0);
+        }
+        while (!openList.isEmpty()) {
+            int u = openList.pop();
+            int cost = dist[base + u];
+            int c = u / NO_OF_DIR;
+            Direction dir = Direction.get(u % NO_OF_DIR);
+
+            //Turning into dir: from the anti-clockwise direction with a right turn, from the clockwise direction with a left turn
+            relax(base, stateId(c, Direction.getAntiClockwise(dir)), cost + RobotConstants.TURN_COST, MOVE_RIGHT, openList);
+            relax(base, stateId(c, Direction.getClockwise(dir)), cost + RobotConstants.TURN_COST, MOVE_LEFT, openList);
+            //Moving forward into the cell from the previous cell facing dir
+            int prev = map.getNeighbourId(cellIds[c], Direction.getOpposite(dir));
+            if (prev != -1 && compactId[prev] != -1) {
+                relax(base, stateId(compactId[prev], dir), cost + RobotConstants.MOVE_COST, MOVE_FORWARD, openList);
+            }
+        }
+    }
+
+    private void relax(int base, int state, int cost, byte move, IndexedMinHeap openList) {
+        if (cost > Short.MAX_VALUE) {
+            throw new IllegalStateException("Distance table cost " + cost + " does not fit in a short");
+        }
+        short old = dist[base + state];
+        if (old == UNREACHABLE) {
+            dist[base + state] = (short) cost;
+            next[base + state] = move;
+            openList.push(state, cost);
+        }
+        else if (cost < old && openList.contains(state)) {
+            dist[base + state] = (short) cost;
+            next[base + state] = move;
+            openList.decreaseKey(state, cost);
+        }
+    }
+
+    //Cost from start facing dir to the goal, INFINITE_COST if either is not a movable cell or there is no path
+    public double getCost(Point start, Direction dir, Point goal) {
+        int index = getIndex(start, dir, goal);
+        return index == -1 || dist[index] == UNREACHABLE ? RobotConstants.INFINITE_COST : dist[index];
+    }
+
+    //Direction faced on reaching the goal when following the next moves in the table, null if there is no path
+    public Direction getEndDirection(Point start, Direction dir, Point goal) {
+        int index = getIndex(start, dir, goal);
+        if (index == -1 || dist[index] == UNREACHABLE) {
+            return null;
+        }
+        int target = compactId[goal.y * width + goal.x];
+        int base = target * noOfStates;
+        int state = index - base;
+        while (state / NO_OF_DIR != target) {
+            int c = state / NO_OF_DIR;
+            Direction curDir = Direction.get(state % NO_OF_DIR);
+            switch (next[base + state]) {
+                case MOVE_FORWARD:
+                    state = stateId(compactId[map.getNeighbourId(cellIds[c], curDir)], curDir);
+                    break;
+                case MOVE_RIGHT:
+                    state = stateId(c, Direction.getClockwise(curDir));
+                    break;
+                default:
+                    state = stateId(c, Direction.getAntiClockwise(curDir));
+                    break;
+            }
+        }
+        return Direction.get(state % NO_OF_DIR);
+    }
+
+    //Check if the table has an entry for both cells
+    public boolean covers(Point start, Point goal) {
+        return map.checkValidCell(start.y, start.x) && map.checkValidCell(goal.y, goal.x)
+                && compactId[start.y * width + start.x] != -1
+                && compactId[goal.y * width + goal.x] != -1;
+    }
+
+    /**
+     * Path with the minimum move and turn cost from start facing dir to goal, read from the next moves in the table.
+     * Returns null if there is no path. The commands to execute the path can be read with getCommands.
+     */
+    public ArrayList<Cell> getPath(Point start, Direction dir, Point goal) {
+        int index = getIndex(start, dir, goal);
+        if (index == -1 || dist[index] == UNREACHABLE) {
+            commands = null;
+            return null;
+        }
+        int target = compactId[goal.y * width + goal.x];
+        int base = target * noOfStates;
+        int state = index - base;
+        ArrayList<Cell> path = new ArrayList<Cell>();
+        commands = new ArrayList<Command>();
+        while (state / NO_OF_DIR != target) {
+            int c = state / NO_OF_DIR;
+            Direction curDir = Direction.get(state % NO_OF_DIR);
+            switch (next[base + state]) {
+                case MOVE_FORWARD:
+                    int nId = map.getNeighbourId(cellIds[c], curDir);
+                    state = stateId(compactId[nId], curDir);
+                    path.add(map.getCellById(nId));
+                    commands.add(Command.FORWARD);
+                    break;
+                case MOVE_RIGHT:
+                    state = stateId(c, Direction.getClockwise(curDir));
+                    commands.add(Command.TURN_RIGHT);
+                    break;
+                default:
+                    state = stateId(c, Direction.getAntiClockwise(curDir));
+                    commands.add(Command.TURN_LEFT);
+                    break;
+            }
+        }
+        return path;
+    }
+
+    //Commands to execute the last path read from the table
+    public ArrayList<Command> getCommands() {
+        return commands == null ? null : new ArrayList<Command>(commands);
+    }
+
+    //Index of the (start, dir) state for the goal in the table, -1 if not in the table
+    private int getIndex(Point start, Direction dir, Point goal) {
+        if (!covers(start, goal)) {
+            return -1;
+        }
+        int target = compactId[goal.y * width + goal.x];
+        return target * noOfStates + stateId(compactId[start.y * width + start.x], dir);
+    }
+
+    //States of the table are numbered as in the heading search, by the compact id of their cell
+    private int stateId(int compact, Direction dir) {
+        return HeadingStates.stateId(compact, dir);
+    }
+}
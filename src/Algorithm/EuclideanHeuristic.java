@@ -0,0 +1,17 @@
+package Algorithm;
+
+import java.awt.Point;
+
+import Map.Direction;
+
+import static java.lang.Math.*;
+
+//Straight line distance to the goal, ignoring the direction
+public class EuclideanHeuristic implements Heuristic {
+
+    @Override
+    public double estimate(int row, int col, Direction dir, Point goal) {
+        return sqrt((row - goal.y) * (row - goal.y) + (col - goal.x) * (col - goal.x));
+    }
+
+}
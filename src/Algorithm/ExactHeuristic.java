@@ -0,0 +1,80 @@
+package Algorithm;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import Map.Direction;
+import Map.Map;
+import Robot.RobotConstants;
+
+/**
+ * Exact cost to the goal from every (cell, direction) state, from a Dijkstra run backwards from the goal with the
+ * heading search costs. The search then only expands states on a fastest path. The costs are kept and only
+ * computed again when the goal changes or the map has changed since, so it pays off when searching to the same
+ * goal more than once, e.g. several starts on a static map.
+ */
+public class ExactHeuristic implements Heuristic {
+
+    private static final Logger LOGGER = Logger.getLogger(ExactHeuristic.class.getName());
+
+    private Map map;    //map the costs were computed for
+    private int width;
+    private HeadingStates states;
+    private double[] cost;
+    private IndexedMinHeap openList;
+    private int goalId = -1;
+    private long builtAt;
+
+    @Override
+    public void prepare(Map map, Point goal) {
+        if (map != this.map) {
+            this.map = map;
+            width = map.getWidth();
+            states = new HeadingStates(map);
+            int noOfStates = states.size();
+            cost = new double[noOfStates];
+            openList = new IndexedMinHeap(noOfStates);
+            goalId = -1;
+        }
+        int id = goal.y * width + goal.x;
+        if (id == goalId && map.getChangeCount() == builtAt) {
+            return;
+        }
+        goalId = id;
+        builtAt = map.getChangeCount();
+
+        Arrays.fill(cost, RobotConstants.INFINITE_COST);
+        for (Direction dir : Direction.values()) {
+            cost[HeadingStates.stateId(id, dir)] = 0;
+            openList.push(HeadingStates.stateId(id, dir), 0);
+        }
+        int expanded = 0;
+        while (!openList.isEmpty()) {
+            int u = openList.pop();
+            expanded++;
+            //Turning into the direction from either side
+            relax(HeadingStates.turnLeft(u), cost[u] + RobotConstants.TURN_COST);
+            relax(HeadingStates.turnRight(u), cost[u] + RobotConstants.TURN_COST);
+            //Moving forward into the cell, which the robot must be able to move to
+            int prev = states.moveBackward(u);
+            if (prev != -1 && states.isMovable(HeadingStates.getCellId(u))) {
+                relax(prev, cost[u] + RobotConstants.MOVE_COST);
+            }
+        }
+        LOGGER.info(String.format("Exact heuristic for goal %s computed, %d states", goal.toString().substring(14), expanded));
+    }
+
+    private void relax(int state, double newCost) {
+        if (newCost < cost[state]) {
+            cost[state] = newCost;
+            openList.pushOrDecrease(state, newCost);
+        }
+    }
+
+    @Override
+    public double estimate(int row, int col, Direction dir, Point goal) {
+        return cost[HeadingStates.stateId(row * width + col, dir)];
+    }
+
+}
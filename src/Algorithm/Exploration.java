@@ -3,7 +3,6 @@ package Algorithm;
 import Map.Map;
 import Map.Cell;
 import Map.Direction;
-import Map.MapConstants;
 import Map.ObsSurface;
 
 import Network.NetMgr;
@@ -31,6 +30,8 @@ public class Exploration {
      * StartTime, EndTime are variables used enforce time limit
      * Start is start position for robot in x,y coordinates
      * NotYetTaken to track obstacle surfaces that are yet to be taken
+     * FastestPath is the path planner bound to the explored map, reused for every path during exploration;
+     * paths use the incremental search, so replanning to the same target after sensing only repairs the last search
      */
 
     private static final Logger LOGGER = Logger.getLogger(Exploration.class.getName());
@@ -47,6 +48,7 @@ public class Exploration {
     private long startTime;
     private long endTime;
     private Point start;
+    private FastestPath fp;
     ArrayList<ObsSurface> obsSurfaces = new ArrayList<ObsSurface>();
 
     // Checking for four consecutive right + forward move
@@ -61,6 +63,7 @@ public class Exploration {
         this.timeLimit = timeLimit;
         this.stepPerSecond = stepPerSecond;
         this.sim = sim;
+        this.fp = new FastestPath(exploredMap, robot, sim);
     }
 
     //Obtain row increment for robot's position for every direction
@@ -308,10 +311,33 @@ public class Exploration {
     }
 
     public boolean goToObsSurfaces(Map exploredMap) throws InterruptedException {
+        //Exploration is done, so paths to the surfaces (and back to start) are read from a precomputed table
+        boolean usingDistanceTable = fp.isUsingDistanceTable();
+        fp.setUseDistanceTable(true);
+        try {
+            return goToObsSurfacesInOrder(exploredMap);
+        } finally {
+            fp.setUseDistanceTable(usingDistanceTable);
+        }
+    }
+
+    private boolean goToObsSurfacesInOrder(Map exploredMap) throws InterruptedException {
         ObsSurface targetObsSurface;
-        while (obsSurfaces.size() > 0) {
+        //Plan the visiting order once on true path costs, only as many surfaces as the time left plus the time kept
+        //for this phase allows, ending back at start
+        double budget = (Math.max(0, endTime - System.currentTimeMillis()) + RobotConstants.IMG_TOUR_TIME_LIMIT * 1000)
+                / 1000.0 * stepPerSecond;
+        double captureCost = RobotConstants.IMG_CAPTURE_MS / 1000.0 * stepPerSecond;
+        SurfaceTourPlanner tourPlanner = new SurfaceTourPlanner(fp.getPathCost());
+        ArrayList<ObsSurface> tour = tourPlanner.planTour(robot.getPos(), robot.getDir(), obsSurfaces, start,
+                captureCost, budget);
+        for (int i = 0; i < tour.size(); i++) {
+            targetObsSurface = tour.get(i);
+            //Already removed as the neighbour of a surface taken before
+            if (!obsSurfaces.contains(targetObsSurface)) {
+                continue;
+            }
             System.out.print("No of surfaces left" + obsSurfaces.size());
-            targetObsSurface = exploredMap.nearestObstacleSurface(robot.getPos(), obsSurfaces);
             System.out.print("Obstacle location" + targetObsSurface.getPos().x + "," + targetObsSurface.getPos().y);
 
             //Execute movements to obstacle surface point to take image
@@ -327,7 +353,7 @@ public class Exploration {
             if (sim) {
                 robot.setStatus("Send image command to Rpi");
                 System.out.println("Send image command to Rpi");
-                TimeUnit.MILLISECONDS.sleep(750);
+                TimeUnit.MILLISECONDS.sleep(RobotConstants.IMG_CAPTURE_MS);
             } else {
 
             }
@@ -489,13 +515,13 @@ public class Exploration {
         if (checkIfMovable(Direction.getClockwise(robotDir))) {
 
             //Execute image rec front if facing obstacle
-            if (robot.align_front(exploredMap, realMap) && robot.isDoingImage() && !robot.isFacingWall()) {
+            if (robot.align_front(exploredMap, realMap) && robot.isDoingImage() && !robot.isFacingWall(exploredMap)) {
                 System.out.println("Testing for image position possible");
                 if(imagePositionPossible(exploredMap, Direction.getOpposite(robot.getDir()),robot.getPos()))
                 captureImageFront();
             }
             //On obstacle and steps count is more than zero-> outstanding
-            if (!robot.isRightHuggingWall()) {
+            if (!robot.isRightHuggingWall(exploredMap)) {
                 robot.obstacleSide++;
                 robot.obstacleStepsCounter = 0;
 
@@ -514,7 +540,7 @@ public class Exploration {
 
             robot.move(Command.FORWARD, RobotConstants.MOVE_STEPS, exploredMap, stepPerSecond);
             robot.sense(exploredMap, realMap);
-            if (!robot.isRightHuggingWall()) {
+            if (!robot.isRightHuggingWall(exploredMap)) {
                 robot.obstacleStepsCounter++;
             }
             if (robot.obstacleStepsCounter == 3 && robot.isDoingImage() && robot.checkFrontForSingleObstacle(exploredMap, Direction.getClockwise(robot.getDir()))) {
@@ -533,11 +559,11 @@ public class Exploration {
                     robot.align_right(exploredMap, realMap);
                 }
             }
-            if (robot.align_front(exploredMap, realMap) && robot.isDoingImage() && !robot.isFacingWall()) {
+            if (robot.align_front(exploredMap, realMap) && robot.isDoingImage() && !robot.isFacingWall(exploredMap)) {
                 captureImageFront();
                 robot.obstacleSide = 1;
             }
-            if (!robot.isRightHuggingWall()) {
+            if (!robot.isRightHuggingWall(exploredMap)) {
                 robot.obstacleSide = 1;
                 if (robot.obstacleStepsCounter > 0 && robot.isDoingImage()) {
                     robot.align_front(exploredMap, realMap);
@@ -560,7 +586,7 @@ public class Exploration {
         //If all fails, u-turn
         else {
 
-            if (robot.align_front(exploredMap, realMap) && robot.isDoingImage() && !robot.isFacingWall()) {
+            if (robot.align_front(exploredMap, realMap) && robot.isDoingImage() && !robot.isFacingWall(exploredMap)) {
                 captureImageFront();
             }
             robot.turn(Command.TURN_LEFT, stepPerSecond);
@@ -568,7 +594,7 @@ public class Exploration {
             robot.setAlignCount(0);
             robot.sense(exploredMap, realMap);
 
-            if (robot.align_front(exploredMap, realMap) && robot.isDoingImage() && !robot.isFacingWall()) {
+            if (robot.align_front(exploredMap, realMap) && robot.isDoingImage() && !robot.isFacingWall(exploredMap)) {
                 captureImageFront();
             }
             robot.turn(Command.TURN_LEFT, stepPerSecond);
@@ -745,9 +771,8 @@ public class Exploration {
 
             ArrayList<Command> commands;
             ArrayList<Cell> path;
-            FastestPath fp = new FastestPath(exploredMap, robot, sim);
             //Run aStar algorithm for robot to reach target location
-            path = fp.runAStar(robot.getPos(), loc, robot.getDir());
+            path = fp.runAStar(robot.getPos(), loc, robot.getDir(), SearchMode.INCREMENTAL);
             //Return false if no viable path from robot's current position to target location
             if (path == null)
                 return false;
@@ -782,9 +807,8 @@ public class Exploration {
 
             ArrayList<Command> commands;
             ArrayList<Cell> path;
-            FastestPath fp = new FastestPath(exploredMap, robot, sim);
             //Run aStar algorithm for robot to reach target location
-            path = fp.runAStar(robot.getPos(), loc, robot.getDir());
+            path = fp.runAStar(robot.getPos(), loc, robot.getDir(), SearchMode.INCREMENTAL);
             //Return false if no viable path from robot's current position to target location
             if (path == null)
                 return false;
@@ -816,9 +840,8 @@ public class Exploration {
 
             ArrayList<Command> commands;
             ArrayList<Cell> path;
-            FastestPath fp = new FastestPath(exploredMap, robot, sim);
             //Run aStar algorithm for robot to reach target location
-            path = fp.runAStar(robot.getPos(), loc, robot.getDir());
+            path = fp.runAStar(robot.getPos(), loc, robot.getDir(), SearchMode.INCREMENTAL);
             //Return false if no viable path from robot's current position to target location
             if (path == null)
                 return false;
@@ -849,7 +872,7 @@ public class Exploration {
             colInc = (int) Math.cos(Math.PI / 2 * i);
             curDist = 0;
             //Circularly check for nearest virtual wall, incrementing distance for each iteration
-            for (int j = 1; j < MapConstants.MAP_HEIGHT; j++) {
+            for (int j = 1; j < Math.max(exploredMap.getHeight(), exploredMap.getWidth()); j++) {
                 if (exploredMap.checkValidCell(pos.y + rowInc * j, pos.x + colInc * j)) {
                     if (exploredMap.clearForRobot(pos.y + rowInc * j, pos.x + colInc * j))
                         curDist++;
@@ -2,8 +2,8 @@ package Algorithm;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.logging.Logger;
 
 import Map.*;
@@ -19,78 +19,287 @@ public class FastestPath {
 
     private boolean sim;
     private Map exploredMap; //map after exploration
+    private int width;
     private Robot robot;
-    private HashMap<Point, Double> gCostMap; //map of g cost for every cell
-    private HashMap<Cell,Cell> pathMap = new HashMap<Cell, Cell>();
+
+    private static final int NO_OF_DIR = HeadingStates.NO_OF_DIR;
+    private static final double TIE_BREAK = 1e-6;
+
+    /**
+     * Search state shared by both search modes, indexed by cell id (cell search) or state id (heading search).
+     * An entry of gCost and parent is only valid when it is visited in the current search, so
+     * starting a new search is O(1) instead of rebuilding the cost map for every cell.
+     */
+    private double[] gCost;
+    private int[] parent;
+    private SearchSpace search;
+    private IndexedMinHeap openList; //not yet visited cells keyed by F cost; "open" list
+    private BitSet closedList; //visited cells; "closed" list
+
+    /**
+     * Movable cells (explored, not obstacle or virtual wall) cached across searches. Before each search only
+     * the cells changed in the map since the previous search are re-checked, so one planner can be kept for
+     * the whole run instead of creating a new one for every path.
+     */
+    private BitSet movable;
+    private long changesSeen;
+    private HeadingStates states;   //moving through the cached movable cells
+
+    //Last path found by the heading search and the commands to execute it
+    private ArrayList<Cell> lastPath;
+    private ArrayList<Command> lastCommands;
+    private Point lastStart;
+    private Direction lastDir;
+
+    private Heuristic heuristic = new TurnHeuristic(); //estimate of the remaining cost, for the cell and heading searches
+
+    private DStarLite incremental; //search tree kept between searches to the same goal
+    private JumpPointSearch jumpPoint;
+    private BidirectionalSearch bidirectional;
+    private AnytimePlanner anytime; //improves its path in the background between startAnytime and finishAnytime
+    private Point anytimeStart;
+    private Direction anytimeDir;
+    private ArrayList<Cell> tablePath;  //path through the waypoint read from the distance table, null if not used
+    private ArrayList<Command> tableCommands;
+
+    //Precomputed paths between all movable cells, used instead of searching while enabled
+    private boolean useDistanceTable;
+    private DistanceTable distanceTable;
+    private long tooLargeAt = -1;  //map change count when the map was found to have too many cells for a table
 
     public FastestPath(Map exploredMap, Robot robot, boolean sim) {
         this.exploredMap = exploredMap;
+        width = exploredMap.getWidth();
         this.robot = robot;
         this.sim = sim;
-        initCostMap();
+        movable = new BitSet(exploredMap.getHeight() * exploredMap.getWidth());
+        states = new HeadingStates(exploredMap, movable::get);
+        int noOfStates = states.size();
+        gCost = new double[noOfStates];
+        parent = new int[noOfStates];
+        search = new SearchSpace(noOfStates);
+        openList = search.getOpenList();
+        closedList = search.getClosedList();
+        rebuildMovable();
+        incremental = new DStarLite(exploredMap);
+        jumpPoint = new JumpPointSearch(exploredMap);
+        bidirectional = new BidirectionalSearch(exploredMap);
+        anytime = new AnytimePlanner(exploredMap);
+    }
+
+    //Re-check every cell of the map
+    private void rebuildMovable() {
+        for (int id = 0; id < exploredMap.getHeight() * exploredMap.getWidth(); id++) {
+            movable.set(id, exploredMap.checkValidMove(id / width, id % width));
+        }
+        changesSeen = exploredMap.getChangeCount();
+    }
+
+    //Re-check only the cells changed since the last search
+    private void updateMovable() {
+        long changeCount = exploredMap.getChangeCount();
+        for (long change = changesSeen; change < changeCount; change++) {
+            int id = exploredMap.getChangedCellId(change);
+            if (id == Map.ALL_CELLS) {
+                rebuildMovable();
+                return;
+            }
+            movable.set(id, exploredMap.checkValidMove(id / width, id % width));
+        }
+        changesSeen = changeCount;
+    }
+
+    //Check if the robot can move to the cell, using the cached movable cells
+    private boolean isMovable(int row, int col) {
+        return exploredMap.checkValidCell(row, col) && movable.get(cellId(row, col));
+    }
+
+    //Invalidate the costs and parents of the previous search
+    private void resetSearch() {
+        search.reset();
+        updateMovable();
+    }
+
+    //G cost of a node in the current search, infinite if not reached yet
+    private double getG(int id) {
+        return search.isVisited(id) ? gCost[id] : RobotConstants.INFINITE_COST;
     }
 
-    public void initCostMap() {
-        gCostMap = new HashMap<Point, Double>();
-        for (int row = 0; row < MapConstants.MAP_HEIGHT; row ++) {
-            for (int col = 0; col < MapConstants.MAP_WIDTH; col ++) {
-                Cell cell = exploredMap.getCell(row, col);
-                if (cell.movableCell()) { // Cell is movable if explored, and not obstacle or virtual wall
-                    gCostMap.put(cell.getPos(), 0.0); //init costs of all cells as 0
+    private void setG(int id, double g, int parentId) {
+        search.visit(id);
+        gCost[id] = g;
+        parent[id] = parentId;
+    }
+
+    /**
+     * Heuristic scaled up very slightly so that among nodes with the same F cost the one closest to the goal is
+     * expanded first. Costs are whole numbers, so the path found still has the minimum cost.
+     */
+    private double estimateH(int row, int col, Direction dir, Point goal) {
+        return heuristic.estimate(row, col, dir, goal) * (1 + TIE_BREAK);
+    }
+
+    //Change the heuristic used by the cell and heading searches
+    public void setHeuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Answer path queries from a DistanceTable instead of searching, for when the map no longer changes
+     * (e.g. after exploration). The table is built on the first query and rebuilt if the map changed since.
+     * On arenas with more than DistanceTable.MAX_CELLS movable cells the queries keep searching.
+     */
+    public void setUseDistanceTable(boolean useDistanceTable) {
+        this.useDistanceTable = useDistanceTable;
+        if (!useDistanceTable) {
+            distanceTable = null;
+        }
+    }
+
+    public boolean isUsingDistanceTable() {
+        return useDistanceTable;
+    }
+
+    //Distance table of the current map, built again if the map changed since it was last built; null if it is too large
+    public DistanceTable getDistanceTable() {
+        if (distanceTable == null || distanceTable.isStale()) {
+            distanceTable = null;
+            if (tooLargeAt == exploredMap.getChangeCount()) {
+                return null;
+            }
+            if (!DistanceTable.fits(exploredMap)) {
+                LOGGER.warning(String.format("Map has more than %d movable cells, searching instead of using a distance table", DistanceTable.MAX_CELLS));
+                tooLargeAt = exploredMap.getChangeCount();
+                return null;
+            }
+            distanceTable = new DistanceTable(exploredMap);
+        }
+        return distanceTable;
+    }
+
+    //Path costs from the distance table if the map fits in one, otherwise from a bidirectional search per query
+    public PathCost getPathCost() {
+        DistanceTable table = getDistanceTable();
+        if (table != null) {
+            return table;
+        }
+        return new PathCost() {
+            //the last query, as getCost and getEndDirection are asked for the same one
+            private Point lastStart;
+            private Direction lastDir;
+            private Point lastGoal;
+            private long lastChangeCount;
+            private ArrayList<Command> lastSearch;
+
+            public double getCost(Point start, Direction dir, Point goal) {
+                ArrayList<Command> commands = search(start, dir, goal);
+                if (commands == null) {
+                    return RobotConstants.INFINITE_COST;
+                }
+                return getCommandsCost(commands);
+            }
+
+            public Direction getEndDirection(Point start, Direction dir, Point goal) {
+                ArrayList<Command> commands = search(start, dir, goal);
+                if (commands == null) {
+                    return null;
+                }
+                for (Command command : commands) {
+                    if (command == Command.TURN_RIGHT) {
+                        dir = Direction.getClockwise(dir);
+                    }
+                    else if (command == Command.TURN_LEFT) {
+                        dir = Direction.getAntiClockwise(dir);
+                    }
+                }
+                return dir;
+            }
+
+            //Commands of the fastest path, only between the cells a table would cover
+            private ArrayList<Command> search(Point start, Direction dir, Point goal) {
+                if (start.equals(lastStart) && dir == lastDir && goal.equals(lastGoal)
+                        && lastChangeCount == exploredMap.getChangeCount()) {
+                    return lastSearch;
                 }
-                else {
-                    gCostMap.put(cell.getPos(), RobotConstants.INFINITE_COST); //if cell not movable set infinite to avoid
+                lastStart = new Point(start);
+                lastDir = dir;
+                lastGoal = new Point(goal);
+                lastChangeCount = exploredMap.getChangeCount();
+                lastSearch = null;
+                if (exploredMap.checkValidMove(start.y, start.x) && exploredMap.checkValidMove(goal.y, goal.x)
+                        && bidirectional.findPath(start, goal, dir) != null) {
+                    lastSearch = bidirectional.getCommands();
                 }
+                return lastSearch;
             }
+        };
+    }
+
+    //Find the path with the given search mode, or from the distance table if enabled
+    public ArrayList<Cell> runAStar(Point start, Point goal, Direction initDir, SearchMode mode) {
+        if (useDistanceTable && getDistanceTable() != null && distanceTable.covers(start, goal)) {
+            return runDistanceTable(start, goal, initDir);
+        }
+        switch (mode) {
+            case HEADING:
+                return runHeadingAStar(start, goal, initDir);
+            case INCREMENTAL:
+                return runIncremental(start, goal, initDir);
+            case JPS:
+                return runJumpPointSearch(start, goal, initDir);
+            case BIDIRECTIONAL:
+                return runBidirectional(start, goal, initDir);
+            case ANYTIME:
+                return runAnytime(start, goal, initDir);
+            default:
+                return runAStar(start, goal, initDir);
         }
     }
 
     public ArrayList<Cell> runAStar(Point start, Point goal, Direction initDir) {
-        ArrayList<Cell> openList = new ArrayList<Cell>(); //not yet visited cells; "open" list
-        ArrayList<Cell> closedList = new ArrayList<Cell>(); //visited cells; "closed" list
-        ArrayList<Cell> neighbours; //neighbouring cells list
-        double newGtemp, curGtemp;
+        double newGtemp;
+        int startId = cellId(start.y, start.x);
+        int goalId = cellId(goal.y, goal.x);
 
         // init
         String status = String.format("Finding fastest path from %s to %s, initial direction: %s", start.toString().substring(14), goal.toString().substring(14), initDir.toString());
         robot.setStatus(status);
         LOGGER.info(status);
-        Cell curCell = exploredMap.getCell(start);
-        openList.add(curCell);
-        Direction curDir = initDir;
+        resetSearch();
+        heuristic.prepare(exploredMap, goal);
+        setG(startId, 0, -1);
+        openList.push(startId, estimateH(start.y, start.x, initDir, goal));
+        Direction curDir;
 
         while (!openList.isEmpty()) { //while there are cells not yet visited
-            curCell = getMinCostCell(openList, goal); //get cell with lowest cost in open list
-            if (pathMap.containsKey(curCell)) {
-                curDir = exploredMap.getCellDir(pathMap.get(curCell).getPos(), curCell.getPos());
-            }
-            closedList.add(curCell);
-            openList.remove(curCell);
-            if (closedList.contains(exploredMap.getCell(goal))) { //if goal is reached
+            int curId = openList.pop(); //get cell with lowest F cost in open list
+            int row = curId / width;
+            int col = curId % width;
+            curDir = parent[curId] == -1 ? initDir : getCellDir(parent[curId], curId);
+            closedList.set(curId);
+            if (curId == goalId) { //if goal is reached
                 LOGGER.info("Fastest path found");
-                return getPath(start, goal);
+                return getPath(startId, goalId);
             }
-            else {
-                neighbours = exploredMap.getNeighbours(curCell);
-                for (Cell n: neighbours) {
-                    if (closedList.contains(n)) { //if neighbour already visited, ignore
-                        continue;
-                    }
-                    else {
-                        newGtemp = gCostMap.get(curCell.getPos()) + calculateG(curCell.getPos(), n.getPos(), curDir); //calculate new G value
-                        if (openList.contains(n)) { //if current cell already in open list, i.e. was a neighbour of a previous cell before
-                            curGtemp = gCostMap.get(n.getPos());
-                            if (newGtemp < curGtemp) {
-                                gCostMap.replace(n.getPos(), newGtemp); //update the G value if the new path to current cell has lower G value
-                                pathMap.replace(n, curCell); //update path with lower G value
-                            }
-                        }
-                        else { //if neighbour not yet visited
-                            pathMap.put(n, curCell); //set new path to current cell
-                            gCostMap.put(n.getPos(), newGtemp); //set new G value of current cell
-                            openList.add(n); //add current cell to open list, i.e. it has been a neighbour cell
-                        }
-                    }
+            for (int d = 0; d < NO_OF_DIR; d++) {
+                Direction dir = Direction.get(d);
+                int nRow = row + dir.dRow();
+                int nCol = col + dir.dCol();
+                if (!isMovable(nRow, nCol)) { //neighbour must be explored, and not obstacle or virtual wall
+                    continue;
+                }
+                int nId = cellId(nRow, nCol);
+                if (closedList.get(nId)) { //if neighbour already visited, ignore
+                    continue;
+                }
+                double h = estimateH(nRow, nCol, dir, goal);
+                if (h >= RobotConstants.INFINITE_COST) { //goal cannot be reached from the neighbour
+                    continue;
+                }
+                newGtemp = gCost[curId] + calculateG(curDir, dir); //calculate new G value
+                if (newGtemp < getG(nId)) { //neighbour not yet reached, or the new path to it has lower G value
+                    setG(nId, newGtemp, curId);
+                    openList.pushOrDecrease(nId, newGtemp + h);
                 }
             }
         }
@@ -98,14 +307,267 @@ public class FastestPath {
         return null;
     }
 
-    //Returns the path from the prevCell hashmap, moving backwards from goal to start
-    public ArrayList<Cell> getPath(Point start, Point goal) {
-        Cell curCell = exploredMap.getCell(goal); //set current cell as goal
-        Cell startCell = exploredMap.getCell(start);
+    /**
+     * A* over (cell, direction) states. Moving forward costs MOVE_COST and each 90 degree turn is its own edge
+     * costing TURN_COST, so the path returned has the minimum total move and turn cost from the initial direction.
+     * The commands to execute the path are generated while backtracking and can be read with getPathCommands.
+     */
+    public ArrayList<Cell> runHeadingAStar(Point start, Point goal, Direction initDir) {
+        int goalId = cellId(goal.y, goal.x);
+
+        String status = String.format("Finding fastest path (heading) from %s to %s, initial direction: %s", start.toString().substring(14), goal.toString().substring(14), initDir.toString());
+        robot.setStatus(status);
+        LOGGER.info(status);
+
+        int startState = HeadingStates.stateId(cellId(start.y, start.x), initDir);
+        resetSearch();
+        heuristic.prepare(exploredMap, goal);
+        setG(startState, 0, -1);
+        openList.push(startState, estimateH(start.y, start.x, initDir, goal));
+
+        while (!openList.isEmpty()) {
+            int curState = openList.pop();
+            closedList.set(curState);
+            int curId = HeadingStates.getCellId(curState);
+            if (curId == goalId) {
+                LOGGER.info("Fastest path found");
+                return getHeadingPath(start, initDir, curState);
+            }
+            int row = curId / width;
+            int col = curId % width;
+            Direction curDir = HeadingStates.getDir(curState);
+
+            //Forward edge
+            int next = states.moveForward(curState);
+            if (next != -1) {
+                relaxState(curState, next, RobotConstants.MOVE_COST, estimateH(row + curDir.dRow(), col + curDir.dCol(), curDir, goal));
+            }
+            //Turn edges, staying in the same cell
+            relaxState(curState, HeadingStates.turnRight(curState), RobotConstants.TURN_COST, estimateH(row, col, Direction.getClockwise(curDir), goal));
+            relaxState(curState, HeadingStates.turnLeft(curState), RobotConstants.TURN_COST, estimateH(row, col, Direction.getAntiClockwise(curDir), goal));
+        }
+        LOGGER.warning(String.format("Cannot find a fastest path from %s to %s, dir: %s", start.toString().substring(14), goal.toString().substring(14), initDir.toString()));
+        return null;
+    }
+
+    /**
+     * Same path cost as the heading search, but the search tree is kept and only repaired around the cells changed
+     * since the previous search when the goal is the same, e.g. when replanning after a sensor update.
+     */
+    public ArrayList<Cell> runIncremental(Point start, Point goal, Direction initDir) {
+        String status = String.format("Finding fastest path (incremental) from %s to %s, initial direction: %s", start.toString().substring(14), goal.toString().substring(14), initDir.toString());
+        robot.setStatus(status);
+        LOGGER.info(status);
+
+        ArrayList<Cell> path = incremental.findPath(start, goal, initDir);
+        if (path == null) {
+            LOGGER.warning(String.format("Cannot find a fastest path from %s to %s, dir: %s", start.toString().substring(14), goal.toString().substring(14), initDir.toString()));
+            return null;
+        }
+        LOGGER.info("Fastest path found");
+        setLastPath(start, initDir, path, incremental.getCommands());
+        return path;
+    }
+
+    //Read the path from the distance table, same cost as the heading search
+    private ArrayList<Cell> runDistanceTable(Point start, Point goal, Direction initDir) {
+        String status = String.format("Finding fastest path (table) from %s to %s, initial direction: %s", start.toString().substring(14), goal.toString().substring(14), initDir.toString());
+        robot.setStatus(status);
+        LOGGER.info(status);
+
+        ArrayList<Cell> path = distanceTable.getPath(start, initDir, goal);
+        if (path == null) {
+            LOGGER.warning(String.format("Cannot find a fastest path from %s to %s, dir: %s", start.toString().substring(14), goal.toString().substring(14), initDir.toString()));
+            return null;
+        }
+        LOGGER.info("Fastest path found");
+        setLastPath(start, initDir, path, distanceTable.getCommands());
+        return path;
+    }
+
+    //Read the path through the waypoint (null for none) from the distance table, leaving the waypoint in the direction the robot arrives in
+    private ArrayList<Cell> runDistanceTable(Point start, Point wayPoint, Point goal, Direction initDir) {
+        if (wayPoint == null) {
+            return runDistanceTable(start, goal, initDir);
+        }
+        ArrayList<Cell> path = runDistanceTable(start, wayPoint, initDir);
+        if (path == null) {
+            return null;
+        }
+        ArrayList<Command> commands = new ArrayList<Command>(lastCommands);
+        ArrayList<Cell> rest = runDistanceTable(wayPoint, goal, getEndDirection(start, path, initDir));
+        if (rest == null) {
+            return null;
+        }
+        path.addAll(rest);
+        commands.addAll(lastCommands);
+        setLastPath(start, initDir, path, commands);
+        return path;
+    }
+
+    //Same costs as the heading search, but straight lines are jumped over instead of expanded cell by cell
+    public ArrayList<Cell> runJumpPointSearch(Point start, Point goal, Direction initDir) {
+        String status = String.format("Finding fastest path (jump point) from %s to %s, initial direction: %s", start.toString().substring(14), goal.toString().substring(14), initDir.toString());
+        robot.setStatus(status);
+        LOGGER.info(status);
+
+        ArrayList<Cell> path = jumpPoint.findPath(start, goal, initDir);
+        if (path == null) {
+            LOGGER.warning(String.format("Cannot find a fastest path from %s to %s, dir: %s", start.toString().substring(14), goal.toString().substring(14), initDir.toString()));
+            return null;
+        }
+        LOGGER.info("Fastest path found");
+        setLastPath(start, initDir, path, jumpPoint.getCommands());
+        return path;
+    }
+
+    //Same costs as the heading search, searching from both the start and the goal until the two searches meet
+    public ArrayList<Cell> runBidirectional(Point start, Point goal, Direction initDir) {
+        String status = String.format("Finding fastest path (bidirectional) from %s to %s, initial direction: %s", start.toString().substring(14), goal.toString().substring(14), initDir.toString());
+        robot.setStatus(status);
+        LOGGER.info(status);
+
+        ArrayList<Cell> path = bidirectional.findPath(start, goal, initDir);
+        if (path == null) {
+            LOGGER.warning(String.format("Cannot find a fastest path from %s to %s, dir: %s", start.toString().substring(14), goal.toString().substring(14), initDir.toString()));
+            return null;
+        }
+        LOGGER.info("Fastest path found");
+        setLastPath(start, initDir, path, bidirectional.getCommands());
+        return path;
+    }
+
+    //Best path found within PLAN_BUDGET_US, for when the robot moves as soon as the path is returned
+    public ArrayList<Cell> runAnytime(Point start, Point goal, Direction initDir) {
+        startAnytime(start, null, goal, initDir);
+        return finishAnytime();
+    }
+
+    /**
+     * Start planning from start (facing initDir) to goal through wayPoint (null for none). Returns the best path found
+     * within PLAN_BUDGET_US, and keeps improving it in the background until finishAnytime is called.
+     * If the distance table is enabled and covers the points, the legs to and from the waypoint are also read from it,
+     * and that path is taken whenever the anytime planner has not found a cheaper one.
+     */
+    public ArrayList<Cell> startAnytime(Point start, Point wayPoint, Point goal, Direction initDir) {
+        tablePath = null;
+        tableCommands = null;
+        if (useDistanceTable && getDistanceTable() != null && distanceTable.covers(start, goal)
+                && (wayPoint == null || distanceTable.covers(start, wayPoint))) {
+            tablePath = runDistanceTable(start, wayPoint, goal, initDir);
+            tableCommands = tablePath == null ? null : lastCommands;
+        }
+        String status = String.format("Finding fastest path (anytime) from %s to %s, initial direction: %s", start.toString().substring(14), goal.toString().substring(14), initDir.toString());
+        robot.setStatus(status);
+        LOGGER.info(status);
+        anytimeStart = new Point(start);
+        anytimeDir = initDir;
+        anytime.plan(start, wayPoint, goal, initDir, RobotConstants.PLAN_BUDGET_US);
+        return getBestAnytimePath();
+    }
+
+    //Stop improving the path started with startAnytime, to be called when the robot starts moving
+    public ArrayList<Cell> finishAnytime() {
+        anytime.finish();
+        ArrayList<Cell> path = getBestAnytimePath();
+        if (path == null) {
+            LOGGER.warning(String.format("Cannot find a fastest path from %s, dir: %s", anytimeStart.toString().substring(14), anytimeDir.toString()));
+            return null;
+        }
+        LOGGER.info(String.format("Fastest path found, at most %.1f times the minimum cost", anytime.getEpsilon()));
+        return path;
+    }
+
+    //Cheaper of the anytime planner's best path and the distance table path
+    private ArrayList<Cell> getBestAnytimePath() {
+        ArrayList<Cell> path;
+        ArrayList<Command> commands;
+        synchronized (anytime) {    //the background search publishes the path and commands together
+            path = anytime.getBestPath();
+            commands = anytime.getCommands();
+        }
+        if (tablePath != null && (path == null || getCommandsCost(tableCommands) <= getCommandsCost(commands))) {
+            path = new ArrayList<Cell>(tablePath);
+            commands = tableCommands;
+        }
+        if (path != null) {
+            setLastPath(anytimeStart, anytimeDir, path, commands);
+        }
+        return path;
+    }
+
+    //Total move and turn cost of the commands
+    private static double getCommandsCost(ArrayList<Command> commands) {
+        double cost = 0;
+        for (Command command : commands) {
+            cost += command == Command.FORWARD ? RobotConstants.MOVE_COST : RobotConstants.TURN_COST;
+        }
+        return cost;
+    }
+
+    //Update the G cost and parent of the next state if reaching it from the current state is cheaper
+    private void relaxState(int curState, int nextState, double edgeCost, double h) {
+        if (closedList.get(nextState) || h >= RobotConstants.INFINITE_COST) { //visited, or the goal cannot be reached from it
+            return;
+        }
+        double newG = gCost[curState] + edgeCost;
+        if (newG < getG(nextState)) {
+            setG(nextState, newG, curState);
+            openList.pushOrDecrease(nextState, newG + h);
+        }
+    }
+
+    //Backtrack from the goal state, building the cell path and the commands to execute it
+    private ArrayList<Cell> getHeadingPath(Point start, Direction initDir, int goalState) {
+        ArrayList<Integer> pathStates = new ArrayList<Integer>();
+        for (int state = goalState; state != -1; state = parent[state]) {
+            pathStates.add(state);
+        }
+        Collections.reverse(pathStates);
+        ArrayList<Command> commands = new ArrayList<Command>();
+        ArrayList<Cell> path = states.getPath(pathStates, commands);
+        setLastPath(start, initDir, path, commands);
+        return path;
+    }
+
+    //Remember the commands of a path so that getPathCommands does not have to generate them again
+    private void setLastPath(Point start, Direction initDir, ArrayList<Cell> path, ArrayList<Command> commands) {
+        lastPath = new ArrayList<Cell>(path);
+        lastCommands = commands;
+        lastStart = new Point(start);
+        lastDir = initDir;
+    }
+
+    //Index of a cell in the cost and parent arrays
+    private int cellId(int row, int col) {
+        return row * width + col;
+    }
+
+    private Cell getCell(int cellId) {
+        return exploredMap.getCell(cellId / width, cellId % width);
+    }
+
+    //Moving direction between two adjacent cells
+    private Direction getCellDir(int fromId, int toId) {
+        int diff = toId - fromId;
+        if (diff == width) {
+            return Direction.UP;
+        } else if (diff == -width) {
+            return Direction.DOWN;
+        } else if (diff == -1) {
+            return Direction.LEFT;
+        } else {
+            return Direction.RIGHT;
+        }
+    }
+
+    //Returns the path from the parent array, moving backwards from goal to start
+    private ArrayList<Cell> getPath(int startId, int goalId) {
         ArrayList<Cell> path = new ArrayList<Cell>();
-        while(curCell != startCell) { //while current cell is not start cell
-            path.add(curCell); //add current cell to final path
-            curCell = pathMap.get(curCell); //iterate until start cell is reached
+        int curId = goalId; //set current cell as goal
+        while (curId != startId) { //while current cell is not start cell
+            path.add(getCell(curId)); //add current cell to final path
+            curId = parent[curId]; //iterate until start cell is reached
         }
         Collections.reverse(path); //reverse the goal -> start to make it start -> goal
         System.out.println(path);
@@ -133,83 +595,92 @@ public class FastestPath {
         System.out.println("\n");
     }
 
-    //Returns the movements required to execute the path
-    public ArrayList<Command> getPathCommands(ArrayList<Cell> path) throws InterruptedException {
-        Robot tempRobot = new Robot(true, true, robot.getPos().y, robot.getPos().x, robot.getDir()); //sim:false for actual run?
-        ArrayList<Command> moves = new ArrayList<Command>();
+    //Returns the movements required to execute the path, starting from the robot's current position and direction
+    public ArrayList<Command> getPathCommands(ArrayList<Cell> path) {
+        //Commands were already generated by the search for this path
+        if (lastCommands != null && path.equals(lastPath) && robot.getPos().equals(lastStart) && robot.getDir() == lastDir) {
+            System.out.println("Generated Moves: " + lastCommands.toString());
+            return new ArrayList<Command>(lastCommands);
+        }
 
-        Command move;
-        Cell cell = exploredMap.getCell(tempRobot.getPos());
-        Cell newCell;
-        Direction cellDir;
-
-        //Iterate through the path
-        for (int i = 0; i < path.size(); i++) {
-            newCell = path.get(i);
-            cellDir = exploredMap.getCellDir(cell.getPos(), newCell.getPos());
-            // If the TempRobot and cell direction not the same
-            if (Direction.getOpposite(tempRobot.getDir()) == cellDir) {
-//                // 1. use backwards
-//                move = Command.BACKWARD;
-                move = Command.TURN_LEFT; //first move
-                tempRobot.turn(move, RobotConstants.STEP_PER_SECOND);
-                moves.add(move);
-                tempRobot.turn(move, RobotConstants.STEP_PER_SECOND);
-                moves.add(move);
-                move = Command.FORWARD; //second move
-
-            } else if (Direction.getClockwise(tempRobot.getDir()) == cellDir) {
-                move = Command.TURN_RIGHT; //first move
-                tempRobot.turn(move, RobotConstants.STEP_PER_SECOND);
-                moves.add(move); //second move
-                move = Command.FORWARD;
-            } else if (Direction.getAntiClockwise(tempRobot.getDir()) == cellDir) {
-                move = Command.TURN_LEFT; //first move
-                tempRobot.turn(move, RobotConstants.STEP_PER_SECOND);
-                moves.add(move);
-                move = Command.FORWARD; //second move
-            } else {
-                move = Command.FORWARD;
-            }
-            tempRobot.move(move, RobotConstants.MOVE_STEPS, exploredMap, RobotConstants.STEP_PER_SECOND);
-            moves.add(move);
-            cell = newCell;
+        ArrayList<Command> moves = new ArrayList<Command>();
+        Direction dir = robot.getDir();
+        for (PathSegment segment : getPathSegments(robot.getPos(), dir, path)) {
+            moves.addAll(getTurnCommands(dir, segment.getDir()));
+            for (int i = 0; i < segment.getSteps(); i++) {
+                moves.add(Command.FORWARD);
+            }
+            dir = segment.getDir();
         }
         System.out.println("Generated Moves: " + moves.toString());
         return moves;
     }
 
-    //To get cell with the lowest F cost in the open list; F = G + H
-    private Cell getMinCostCell(ArrayList<Cell> openList, Point goal) {
-        Cell cell = null;
-        Point pos;
-        double minCost = RobotConstants.INFINITE_COST;
-
-        for (Cell cellTemp : openList) {
-            pos = cellTemp.getPos();
-            double fCost = gCostMap.get(pos) + calculateH(pos, goal);
-            if(fCost < minCost) {
-                minCost = fCost;
-                cell = cellTemp;
+    //Compress the path into straight runs, each with the heading of the robot and the number of cells moved
+    public ArrayList<PathSegment> getPathSegments(Point start, Direction initDir, ArrayList<Cell> path) {
+        ArrayList<PathSegment> segments = new ArrayList<PathSegment>();
+        Point pos = start;
+        Direction runDir = initDir;
+        int steps = 0;
+        for (Cell cell : path) {
+            Point newPos = cell.getPos();
+            Direction cellDir = exploredMap.getCellDir(pos, newPos);
+            if (cellDir != runDir && steps > 0) {
+                segments.add(new PathSegment(runDir, steps));
+                steps = 0;
             }
+            runDir = cellDir;
+            steps++;
+            pos = newPos;
+        }
+        if (steps > 0) {
+            segments.add(new PathSegment(runDir, steps));
         }
-        return cell;
+        return segments;
     }
 
-    // Calculate G cost from point A to point B in a given direction
-    private double calculateG(Point A, Point B, Direction dir) {
-        return calculateMoveCost(A, B) + calculateTurnCost(dir, exploredMap.getCellDir(A, B));
+    //Turns to face the new direction from the current one; turning around is done with two left turns
+    public static ArrayList<Command> getTurnCommands(Direction dir, Direction newDir) {
+        ArrayList<Command> turns = new ArrayList<Command>();
+        if (Direction.getOpposite(dir) == newDir) {
+            turns.add(Command.TURN_LEFT);
+            turns.add(Command.TURN_LEFT);
+        } else if (Direction.getClockwise(dir) == newDir) {
+            turns.add(Command.TURN_RIGHT);
+        } else if (Direction.getAntiClockwise(dir) == newDir) {
+            turns.add(Command.TURN_LEFT);
+        }
+        return turns;
     }
 
-    //Calculate H cost (heuristics) from a point to the goal; using Manhattan distance
-    private double calculateH(Point pt, Point goal) {
-        return pt.distance(goal);
+    //Arduino command string for the segments, forward runs are split into moves of at most MAX_MOVE cells
+    public static String getArduinoCommands(Direction initDir, ArrayList<PathSegment> segments) {
+        StringBuilder cmdBuilder = new StringBuilder();
+        Direction dir = initDir;
+        for (PathSegment segment : segments) {
+            for (Command turn : getTurnCommands(dir, segment.getDir())) {
+                cmdBuilder.append(Command.ArduinoMove.values()[turn.ordinal()]).append(1).append('|');
+            }
+            for (int remaining = segment.getSteps(); remaining > 0; remaining -= RobotConstants.MAX_MOVE) {
+                cmdBuilder.append(Command.ArduinoMove.values()[Command.FORWARD.ordinal()]).append(min(remaining, RobotConstants.MAX_MOVE)).append('|');
+            }
+            dir = segment.getDir();
+        }
+        return cmdBuilder.toString();
+    }
+
+    //Returns the direction the robot faces after executing the path from the start point
+    public Direction getEndDirection(Point start, ArrayList<Cell> path, Direction initDir) {
+        if (path.isEmpty()) {
+            return initDir;
+        }
+        Point prev = path.size() > 1 ? path.get(path.size() - 2).getPos() : start;
+        return exploredMap.getCellDir(prev, path.get(path.size() - 1).getPos());
     }
 
-    //Calculate cost to move from point A to point B
-    private double calculateMoveCost(Point A, Point B) {
-        double steps =  abs(A.x - B.x) + abs(A.y - B.y);
-        return RobotConstants.MOVE_COST * steps;
+    // Calculate G cost of moving one cell in moveDir while facing dir
+    private double calculateG(Direction dir, Direction moveDir) {
+        return RobotConstants.MOVE_COST + calculateTurnCost(dir, moveDir);
     }
 
     //calculate cost to turn from direction A to direction B
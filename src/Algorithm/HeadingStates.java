@@ -0,0 +1,98 @@
+package Algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import Map.*;
+import Robot.Command;
+
+/**
+ * The (cell, direction) states searched with the heading search costs: a state is cell id * NO_OF_DIR + direction
+ * ordinal, and its edges are moving forward into the next cell (MOVE_COST) or turning 90 degrees in place (TURN_COST).
+ * Which cells the robot can move to is read from the map, or from a copy kept by the search.
+ */
+final class HeadingStates {
+
+    static final int NO_OF_DIR = Direction.values().length;
+
+    private final Map map;
+    private final IntPredicate movable;  //takes a cell id
+
+    HeadingStates(Map map) {
+        this(map, id -> map.checkValidMove(id / map.getWidth(), id % map.getWidth()));
+    }
+
+    HeadingStates(Map map, IntPredicate movable) {
+        this.map = map;
+        this.movable = movable;
+    }
+
+    //Number of states of the map
+    int size() {
+        return map.getHeight() * map.getWidth() * NO_OF_DIR;
+    }
+
+    static int stateId(int cellId, Direction dir) {
+        return cellId * NO_OF_DIR + dir.ordinal();
+    }
+
+    static int getCellId(int state) {
+        return state / NO_OF_DIR;
+    }
+
+    static Direction getDir(int state) {
+        return Direction.get(state % NO_OF_DIR);
+    }
+
+    //Same cell, after turning right
+    static int turnRight(int state) {
+        return stateId(getCellId(state), Direction.getClockwise(getDir(state)));
+    }
+
+    //Same cell, after turning left
+    static int turnLeft(int state) {
+        return stateId(getCellId(state), Direction.getAntiClockwise(getDir(state)));
+    }
+
+    boolean isMovable(int cellId) {
+        return movable.test(cellId);
+    }
+
+    //State after moving forward, -1 if the robot cannot move to the next cell
+    int moveForward(int state) {
+        Direction dir = getDir(state);
+        int next = map.getNeighbourId(getCellId(state), dir);
+        return next != -1 && movable.test(next) ? stateId(next, dir) : -1;
+    }
+
+    //State that moving forward comes from into the state, -1 if that cell is outside the arena
+    int moveBackward(int state) {
+        Direction dir = getDir(state);
+        int prev = map.getNeighbourId(getCellId(state), Direction.getOpposite(dir));
+        return prev == -1 ? -1 : stateId(prev, dir);
+    }
+
+    /**
+     * Cells moved into along consecutive states, each one move forward or one turn from the one before. The commands
+     * to execute them are added to commands.
+     */
+    ArrayList<Cell> getPath(List<Integer> states, ArrayList<Command> commands) {
+        ArrayList<Cell> path = new ArrayList<Cell>();
+        for (int i = 1; i < states.size(); i++) {
+            int prev = states.get(i - 1);
+            int state = states.get(i);
+            if (getCellId(prev) != getCellId(state)) {
+                path.add(map.getCellById(getCellId(state)));
+                commands.add(Command.FORWARD);
+            }
+            else if (turnRight(prev) == state) {
+                commands.add(Command.TURN_RIGHT);
+            }
+            else {
+                commands.add(Command.TURN_LEFT);
+            }
+        }
+        return path;
+    }
+}
@@ -0,0 +1,21 @@
+package Algorithm;
+
+import java.awt.Point;
+
+import Map.Direction;
+import Map.Map;
+
+/**
+ * Estimate of the remaining cost to the goal used by the A* searches in FastestPath.
+ * It must never be more than the actual move + turn cost from the cell facing dir, or paths may not be the fastest.
+ */
+public interface Heuristic {
+
+    //Called once before each search, for heuristics that precompute something for the goal
+    default void prepare(Map map, Point goal) {
+    }
+
+    //Estimated cost from the cell, facing dir, to the goal
+    double estimate(int row, int col, Direction dir, Point goal);
+
+}
@@ -0,0 +1,167 @@
+package Algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of integer ids (e.g. cell ids) keyed by a double cost.
+ * Keeps the heap position of every id so that contains and decreaseKey are O(1) and O(log n).
+ * Ids must be in the range [0, capacity).
+ */
+class IndexedMinHeap {
+
+    private int[] heap;     //heap of ids
+    private int[] pos;      //position of each id in the heap, -1 if not in heap
+    private double[] keys;  //key of each id
+    private int size;
+
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        pos = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(pos, -1);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int id) {
+        return pos[id] != -1;
+    }
+
+    double getKey(int id) {
+        return keys[id];
+    }
+
+    //Insert a new id into the heap
+    void push(int id, double key) {
+        keys[id] = key;
+        heap[size] = id;
+        pos[id] = size;
+        size++;
+        siftUp(size - 1);
+    }
+
+    //Lower the key of an id already in the heap, ignored if the new key is not lower
+    void decreaseKey(int id, double key) {
+        if (key < keys[id]) {
+            keys[id] = key;
+            siftUp(pos[id]);
+        }
+    }
+
+    //Insert the id, or lower its key if it is already in the heap
+    void pushOrDecrease(int id, double key) {
+        if (contains(id)) {
+            decreaseKey(id, key);
+        }
+        else {
+            push(id, key);
+        }
+    }
+
+    //Change the key of an id already in the heap, moving it up or down as needed
+    void update(int id, double key) {
+        double oldKey = keys[id];
+        keys[id] = key;
+        if (key < oldKey) {
+            siftUp(pos[id]);
+        }
+        else {
+            siftDown(pos[id]);
+        }
+    }
+
+    //Remove an id from the heap if it is in it
+    void remove(int id) {
+        int i = pos[id];
+        if (i == -1) {
+            return;
+        }
+        size--;
+        if (i != size) {
+            int last = heap[size];
+            heap[i] = last;
+            pos[last] = i;
+            if (keys[last] < keys[id]) {
+                siftUp(i);
+            }
+            else {
+                siftDown(i);
+            }
+        }
+        pos[id] = -1;
+    }
+
+    //Return the id with the lowest key without removing it
+    int peek() {
+        return heap[0];
+    }
+
+    double peekKey() {
+        return keys[heap[0]];
+    }
+
+    //Remove and return the id with the lowest key
+    int pop() {
+        int min = heap[0];
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            pos[heap[0]] = 0;
+            siftDown(0);
+        }
+        pos[min] = -1;
+        return min;
+    }
+
+    //Remove every id, only touching the entries that are still in the heap
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        int id = heap[i];
+        double key = keys[id];
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (keys[heap[parent]] <= key) {
+                break;
+            }
+            heap[i] = heap[parent];
+            pos[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        pos[id] = i;
+    }
+
+    private void siftDown(int i) {
+        int id = heap[i];
+        double key = keys[id];
+        int half = size >> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            if (key <= keys[heap[child]]) {
+                break;
+            }
+            heap[i] = heap[child];
+            pos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = id;
+        pos[id] = i;
+    }
+}
@@ -0,0 +1,217 @@
+package Algorithm;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.logging.Logger;
+
+import Map.*;
+import Robot.Command;
+import Robot.RobotConstants;
+
+import static java.lang.Math.*;
+
+/**
+ * Jump Point Search over (cell, direction) states for the 4-connected arena.
+ * Instead of pushing every cell of a straight line into the open list, a jump scans along the line and only stops
+ * at cells where turning may be needed: the goal, a cell with a forced neighbour (a side cell that is open while the
+ * side cell one step back is blocked), or a cell from which a scan to either side reaches the goal or a forced
+ * neighbour. A jump costs MOVE_COST per cell and turning before the jump costs TURN_COST per 90 degrees, the same
+ * costs as the heading search, so the open list only holds the few states where the path can turn.
+ */
+public class JumpPointSearch {
+
+    private static final Logger LOGGER = Logger.getLogger(JumpPointSearch.class.getName());
+
+    private Map map;
+    private int width;
+    private int goalId;
+
+    //Jump point states, only valid when the visited stamp equals the generation
+    private double[] gCost;
+    private int[] parent;
+    private SearchSpace search;
+    private IndexedMinHeap openList;
+    private BitSet closedList;
+
+    private ArrayList<Command> commands;
+
+    public JumpPointSearch(Map map) {
+        this.map = map;
+        width = map.getWidth();
+        int noOfStates = map.getHeight() * map.getWidth() * HeadingStates.NO_OF_DIR;
+        gCost = new double[noOfStates];
+        parent = new int[noOfStates];
+        search = new SearchSpace(noOfStates);
+        openList = search.getOpenList();
+        closedList = search.getClosedList();
+    }
+
+    /**
+     * Find the path with the minimum move and turn cost from start (facing initDir) to goal, expanded to every cell
+     * on the way. Returns null if there is no path. The commands to execute the path can be read with getCommands.
+     */
+    public ArrayList<Cell> findPath(Point start, Point goal, Direction initDir) {
+        search.reset();
+        goalId = cellId(goal.y, goal.x);
+
+        int startState = HeadingStates.stateId(cellId(start.y, start.x), initDir);
+        setG(startState, 0, -1);
+        openList.push(startState, calculateH(startState));
+        int expanded = 0;
+
+        while (!openList.isEmpty()) {
+            int curState = openList.pop();
+            closedList.set(curState);
+            expanded++;
+            int curId = HeadingStates.getCellId(curState);
+            if (curId == goalId) {
+                LOGGER.info(String.format("Jump point search expanded %d states", expanded));
+                return getPath(curState);
+            }
+            Direction curDir = HeadingStates.getDir(curState);
+            jumpFrom(curState, curDir, 0);
+            jumpFrom(curState, Direction.getClockwise(curDir), RobotConstants.TURN_COST);
+            jumpFrom(curState, Direction.getAntiClockwise(curDir), RobotConstants.TURN_COST);
+            //Going back along the line just jumped is never cheaper than turning earlier, so only turn around at the start
+            if (parent[curState] == -1) {
+                jumpFrom(curState, Direction.getOpposite(curDir), 2 * RobotConstants.TURN_COST);
+            }
+        }
+        LOGGER.info(String.format("Jump point search expanded %d states, no path found", expanded));
+        commands = null;
+        return null;
+    }
+
+    //Commands to execute the last path found
+    public ArrayList<Command> getCommands() {
+        return commands == null ? null : new ArrayList<Command>(commands);
+    }
+
+    //Turn to dir and jump, adding the jump point reached to the open list
+    private void jumpFrom(int curState, Direction dir, double turnCost) {
+        int fromId = HeadingStates.getCellId(curState);
+        int toId = jump(fromId, dir);
+        if (toId == -1) {
+            return;
+        }
+        int nextState = HeadingStates.stateId(toId, dir);
+        if (closedList.get(nextState)) {
+            return;
+        }
+        double newG = gCost[curState] + turnCost + RobotConstants.MOVE_COST * getDistance(fromId, toId);
+        if (newG < getG(nextState)) {
+            setG(nextState, newG, curState);
+            openList.pushOrDecrease(nextState, newG + calculateH(nextState));
+        }
+    }
+
+    //Move along dir from the cell until a jump point is found; -1 if a blocked cell is reached first
+    private int jump(int id, Direction dir) {
+        int rowInc = dir.dRow();
+        int colInc = dir.dCol();
+        int row = id / width;
+        int col = id % width;
+        while (true) {
+            row += rowInc;
+            col += colInc;
+            if (!map.checkValidMove(row, col)) {
+                return -1;
+            }
+            if (cellId(row, col) == goalId || hasForcedNeighbour(row, col, dir)
+                    || scan(row, col, Direction.getClockwise(dir)) || scan(row, col, Direction.getAntiClockwise(dir))) {
+                return cellId(row, col);
+            }
+        }
+    }
+
+    //Check if moving along dir from the cell reaches the goal or a cell with a forced neighbour, without turning
+    private boolean scan(int row, int col, Direction dir) {
+        int rowInc = dir.dRow();
+        int colInc = dir.dCol();
+        while (true) {
+            row += rowInc;
+            col += colInc;
+            if (!map.checkValidMove(row, col)) {
+                return false;
+            }
+            if (cellId(row, col) == goalId || hasForcedNeighbour(row, col, dir)) {
+                return true;
+            }
+        }
+    }
+
+    //A side cell is forced if it is open while the same side of the previous cell is blocked
+    private boolean hasForcedNeighbour(int row, int col, Direction dir) {
+        int prevRow = row - dir.dRow();
+        int prevCol = col - dir.dCol();
+        for (Direction side : new Direction[]{Direction.getClockwise(dir), Direction.getAntiClockwise(dir)}) {
+            int rowInc = side.dRow();
+            int colInc = side.dCol();
+            if (map.checkValidMove(row + rowInc, col + colInc) && !map.checkValidMove(prevRow + rowInc, prevCol + colInc)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Backtrack the jump points from the goal state, filling in the cells and commands between them
+    private ArrayList<Cell> getPath(int goalState) {
+        ArrayList<Cell> path = new ArrayList<Cell>();
+        commands = new ArrayList<Command>();
+        ArrayList<Integer> states = new ArrayList<Integer>();
+        for (int state = goalState; state != -1; state = parent[state]) {
+            states.add(state);
+        }
+        Collections.reverse(states);
+
+        for (int i = 1; i < states.size(); i++) {
+            Direction prevDir = HeadingStates.getDir(states.get(i - 1));
+            Direction dir = HeadingStates.getDir(states.get(i));
+            if (dir == Direction.getClockwise(prevDir)) {
+                commands.add(Command.TURN_RIGHT);
+            }
+            else if (dir == Direction.getAntiClockwise(prevDir)) {
+                commands.add(Command.TURN_LEFT);
+            }
+            else if (dir == Direction.getOpposite(prevDir)) {
+                commands.add(Command.TURN_LEFT);
+                commands.add(Command.TURN_LEFT);
+            }
+            int id = HeadingStates.getCellId(states.get(i - 1));
+            int toId = HeadingStates.getCellId(states.get(i));
+            int step = dir.dRow() * width + dir.dCol();
+            while (id != toId) {
+                id += step;
+                path.add(map.getCellById(id));
+                commands.add(Command.FORWARD);
+            }
+        }
+        return path;
+    }
+
+    //Manhattan distance from the cell of the state to the goal
+    private double calculateH(int state) {
+        return RobotConstants.MOVE_COST * getDistance(HeadingStates.getCellId(state), goalId);
+    }
+
+    private int getDistance(int fromId, int toId) {
+        return abs(fromId / width - toId / width)
+                + abs(fromId % width - toId % width);
+    }
+
+    private double getG(int state) {
+        return search.isVisited(state) ? gCost[state] : RobotConstants.INFINITE_COST;
+    }
+
+    private void setG(int state, double g, int parentState) {
+        search.visit(state);
+        gCost[state] = g;
+        parent[state] = parentState;
+    }
+
+    private int cellId(int row, int col) {
+        return row * width + col;
+    }
+}
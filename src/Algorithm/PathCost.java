@@ -0,0 +1,18 @@
+package Algorithm;
+
+import java.awt.Point;
+
+import Map.Direction;
+
+/**
+ * Move and turn cost of the fastest path between two cells, as used to plan the order to visit several targets.
+ */
+public interface PathCost {
+
+    //Cost from start facing dir to goal, INFINITE_COST if there is no path
+    double getCost(Point start, Direction dir, Point goal);
+
+    //Direction faced on reaching goal along the fastest path from start facing dir, null if there is no path
+    Direction getEndDirection(Point start, Direction dir, Point goal);
+
+}
@@ -0,0 +1,28 @@
+package Algorithm;
+
+import Map.Direction;
+
+public class PathSegment {
+
+    private Direction dir;  //heading of the robot along the run
+    private int steps;      //number of cells moved forward
+
+    public PathSegment(Direction dir, int steps) {
+        this.dir = dir;
+        this.steps = steps;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s x%d", dir.toString(), steps);
+    }
+
+    public Direction getDir() {
+        return dir;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+}
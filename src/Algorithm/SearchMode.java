@@ -0,0 +1,13 @@
+package Algorithm;
+
+public enum SearchMode {
+
+    // CELL: one node per cell, turn cost taken from the direction the cell was entered with
+    // HEADING: one node per (cell, direction), turns are explicit edges so the path has the minimum move + turn cost
+    // INCREMENTAL: same cost as HEADING, but repairs the previous search tree (D* Lite) when replanning to the same goal
+    // JPS: same cost as HEADING, but jumps along straight lines and only expands the cells where the path may turn
+    // BIDIRECTIONAL: same cost as HEADING, searching from the start and the goal at the same time, for long queries
+    // ANYTIME: same cost as HEADING given enough time, otherwise the best path found within PLAN_BUDGET_US (ARA*)
+    CELL, HEADING, INCREMENTAL, JPS, BIDIRECTIONAL, ANYTIME;
+
+}
@@ -0,0 +1,51 @@
+package Algorithm;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Open list, closed list and visited stamps of a search over numbered states, kept between searches.
+ * A search keeps its costs in its own arrays, where an entry is only valid while its state is visited in the current
+ * generation, so starting a new search with reset is O(1) instead of clearing them.
+ */
+final class SearchSpace {
+
+    private final IndexedMinHeap openList;
+    private final BitSet closedList;
+    private final int[] visited;
+    private int generation;
+
+    SearchSpace(int noOfStates) {
+        openList = new IndexedMinHeap(noOfStates);
+        closedList = new BitSet(noOfStates);
+        visited = new int[noOfStates];
+        generation = 0;
+    }
+
+    IndexedMinHeap getOpenList() {
+        return openList;
+    }
+
+    BitSet getClosedList() {
+        return closedList;
+    }
+
+    //Start a new search: no state is visited and the open and closed lists are empty
+    void reset() {
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            generation = 0;
+        }
+        generation++;
+        openList.clear();
+        closedList.clear();
+    }
+
+    boolean isVisited(int state) {
+        return visited[state] == generation;
+    }
+
+    void visit(int state) {
+        visited[state] = generation;
+    }
+}
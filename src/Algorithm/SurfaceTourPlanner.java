@@ -0,0 +1,198 @@
+package Algorithm;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import Map.Direction;
+import Map.ObsSurface;
+import Robot.RobotConstants;
+
+/**
+ * Plans the order to visit obstacle surfaces for image capture. The path cost between every pair of targets (and from
+ * the robot to each target) is read once from a DistanceTable (or searched, on arenas too large for one), then the order with the lowest total cost is found:
+ * exactly with Held-Karp dynamic programming for up to HELD_KARP_LIMIT targets, otherwise with nearest neighbour
+ * improved by 2-opt. Each visit also costs the turns to face the surface and the capture time, and the tour ends with
+ * the trip back home. The tour is cut off at the last target after which the robot can still get home within the budget.
+ */
+public class SurfaceTourPlanner {
+
+    private static final Logger LOGGER = Logger.getLogger(SurfaceTourPlanner.class.getName());
+
+    private static final int HELD_KARP_LIMIT = 12;
+
+    private PathCost pathCost;
+
+    //Cost from node i to visiting node j, node 0 is the robot and node i + 1 is target i
+    private double[][] cost;
+    //Cost from node i back home
+    private double[] homeCost;
+
+    public SurfaceTourPlanner(PathCost pathCost) {
+        this.pathCost = pathCost;
+    }
+
+    /**
+     * Order to visit the targets starting from the robot position and direction and ending at home, with a total cost
+     * of at most budget (in move/turn cost units). Visiting a target costs the path to it, the right turns to face its
+     * surface and captureCost. Targets that cannot be reached are left out.
+     */
+    public ArrayList<ObsSurface> planTour(Point robotPos, Direction robotDir, ArrayList<ObsSurface> targets, Point home,
+                                          double captureCost, double budget) {
+        ArrayList<ObsSurface> reachable = new ArrayList<ObsSurface>();
+        for (ObsSurface target : targets) {
+            if (pathCost.getCost(robotPos, robotDir, target.getTargetPos()) < RobotConstants.INFINITE_COST) {
+                reachable.add(target);
+            }
+        }
+        int n = reachable.size();
+        if (n == 0) {
+            return reachable;
+        }
+
+        cost = new double[n + 1][n + 1];
+        homeCost = new double[n + 1];
+        for (int i = 0; i <= n; i++) {
+            Point from = i == 0 ? robotPos : reachable.get(i - 1).getTargetPos();
+            Direction fromDir = i == 0 ? robotDir : reachable.get(i - 1).getTargetDir();
+            for (int j = 1; j <= n; j++) {
+                cost[i][j] = i == j ? 0 : getVisitCost(from, fromDir, reachable.get(j - 1), captureCost);
+            }
+            homeCost[i] = pathCost.getCost(from, fromDir, home);
+        }
+
+        int[] order = n <= HELD_KARP_LIMIT ? solveHeldKarp(n) : solveTwoOpt(n);
+
+        ArrayList<ObsSurface> tour = new ArrayList<ObsSurface>();
+        double total = 0;
+        int prev = 0;
+        for (int node : order) {
+            if (total + cost[prev][node] + homeCost[node] > budget) {
+                LOGGER.info(String.format("Tour cut off after %d of %d surfaces, budget %.0f", tour.size(), n, budget));
+                break;
+            }
+            total += cost[prev][node];
+            tour.add(reachable.get(node - 1));
+            prev = node;
+        }
+        LOGGER.info(String.format("Tour of %d surfaces planned, cost %.0f", tour.size(), total + homeCost[prev]));
+        return tour;
+    }
+
+    //Cost of going to the target, turning right until facing its surface and capturing it
+    private double getVisitCost(Point from, Direction fromDir, ObsSurface target, double captureCost) {
+        double pathToTarget = pathCost.getCost(from, fromDir, target.getTargetPos());
+        Direction arriveDir = pathCost.getEndDirection(from, fromDir, target.getTargetPos());
+        if (pathToTarget >= RobotConstants.INFINITE_COST || arriveDir == null) {
+            return RobotConstants.INFINITE_COST;
+        }
+        //getClockwise lowers the ordinal by one
+        int rightTurns = (arriveDir.ordinal() - target.getTargetDir().ordinal() + 4) % 4;
+        return pathToTarget + rightTurns * RobotConstants.TURN_COST + captureCost;
+    }
+
+    //Lowest cost order over all subsets of targets, ending at any target and then going home
+    private int[] solveHeldKarp(int n) {
+        int full = (1 << n) - 1;
+        double[][] best = new double[full + 1][n];
+        int[][] prev = new int[full + 1][n];
+        for (double[] row : best) {
+            Arrays.fill(row, RobotConstants.INFINITE_COST);
+        }
+        for (int j = 0; j < n; j++) {
+            best[1 << j][j] = cost[0][j + 1];
+            prev[1 << j][j] = -1;
+        }
+        for (int mask = 1; mask <= full; mask++) {
+            for (int j = 0; j < n; j++) {
+                if ((mask & (1 << j)) == 0 || best[mask][j] >= RobotConstants.INFINITE_COST) {
+                    continue;
+                }
+                for (int k = 0; k < n; k++) {
+                    if ((mask & (1 << k)) != 0) {
+                        continue;
+                    }
+                    int next = mask | (1 << k);
+                    double c = best[mask][j] + cost[j + 1][k + 1];
+                    if (c < best[next][k]) {
+                        best[next][k] = c;
+                        prev[next][k] = j;
+                    }
+                }
+            }
+        }
+        int last = 0;
+        for (int j = 1; j < n; j++) {
+            if (best[full][j] + homeCost[j + 1] < best[full][last] + homeCost[last + 1]) {
+                last = j;
+            }
+        }
+        int[] order = new int[n];
+        int mask = full;
+        for (int i = n - 1; i >= 0; i--) {
+            order[i] = last + 1;
+            int p = prev[mask][last];
+            mask &= ~(1 << last);
+            last = p;
+        }
+        return order;
+    }
+
+    //Nearest neighbour order, then reverse segments of it while that lowers the total cost
+    private int[] solveTwoOpt(int n) {
+        int[] order = new int[n];
+        boolean[] taken = new boolean[n + 1];
+        int cur = 0;
+        for (int i = 0; i < n; i++) {
+            int nearest = -1;
+            for (int j = 1; j <= n; j++) {
+                if (!taken[j] && (nearest == -1 || cost[cur][j] < cost[cur][nearest])) {
+                    nearest = j;
+                }
+            }
+            order[i] = nearest;
+            taken[nearest] = true;
+            cur = nearest;
+        }
+
+        //Costs are not symmetric (they depend on the direction faced), so each candidate is costed in full
+        double bestCost = getTourCost(order);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < n - 1; i++) {
+                for (int k = i + 1; k < n; k++) {
+                    reverse(order, i, k);
+                    double c = getTourCost(order);
+                    if (c < bestCost) {
+                        bestCost = c;
+                        improved = true;
+                    }
+                    else {
+                        reverse(order, i, k);
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    private double getTourCost(int[] order) {
+        double total = 0;
+        int prev = 0;
+        for (int node : order) {
+            total += cost[prev][node];
+            prev = node;
+        }
+        return total + homeCost[prev];
+    }
+
+    private static void reverse(int[] order, int i, int k) {
+        while (i < k) {
+            int temp = order[i];
+            order[i++] = order[k];
+            order[k--] = temp;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package Algorithm;
+
+import java.awt.Point;
+
+import Map.Direction;
+import Robot.RobotConstants;
+
+import static java.lang.Math.*;
+
+/**
+ * Manhattan distance plus the minimum number of turns needed to reach the goal from the current direction:
+ * none if the goal is straight ahead, one if the robot already faces one of the directions it has to move in
+ * or the goal is straight to the side, and two otherwise. Never decreases by more than the cost of a move or turn.
+ */
+public class TurnHeuristic implements Heuristic {
+
+    @Override
+    public double estimate(int row, int col, Direction dir, Point goal) {
+        int rowDiff = goal.y - row;
+        int colDiff = goal.x - col;
+        return RobotConstants.MOVE_COST * (abs(rowDiff) + abs(colDiff)) + RobotConstants.TURN_COST * getMinTurns(rowDiff, colDiff, dir);
+    }
+
+    //Minimum number of 90 degree turns for the robot facing dir to reach a cell rowDiff rows and colDiff columns away
+    static int getMinTurns(int rowDiff, int colDiff, Direction dir) {
+        if (rowDiff == 0 && colDiff == 0) {
+            return 0;
+        }
+        //Directions the robot has to move in, null if there is no movement along that axis
+        Direction vertical = rowDiff > 0 ? Direction.UP : rowDiff < 0 ? Direction.DOWN : null;
+        Direction horizontal = colDiff > 0 ? Direction.RIGHT : colDiff < 0 ? Direction.LEFT : null;
+        boolean facingNeeded = dir == vertical || dir == horizontal;
+
+        if (vertical == null || horizontal == null) {
+            Direction needed = vertical == null ? horizontal : vertical;
+            if (dir == needed) {
+                return 0;
+            }
+            return dir == Direction.getOpposite(needed) ? 2 : 1;
+        }
+        return facingNeeded ? 1 : 2;
+    }
+
+}
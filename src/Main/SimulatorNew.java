@@ -2,6 +2,7 @@ package Main;
 
 import Algorithm.Exploration;
 import Algorithm.FastestPath;
+import Algorithm.PathSegment;
 import Map.Cell;
 import Map.*;
 import Network.NetMgr;
@@ -55,7 +56,10 @@ public class SimulatorNew extends Application {
     private Map exploredMap;
     //fastestPathMap;
     private Map newExploredMap;
-    private Point wayPoint = new Point(MapConstants.GOALZONE_COL, MapConstants.GOALZONE_ROW);
+    // Arena size, can be set with --height=<rows> --width=<cols> on the command line
+    private int mapHeight = MapConstants.MAP_HEIGHT;
+    private int mapWidth = MapConstants.MAP_WIDTH;
+    private Point wayPoint;
     private Point startPos = new Point(1, 1);
     private Robot robot;
     private boolean sim = true;
@@ -113,11 +117,15 @@ public class SimulatorNew extends Application {
 
     public void start(Stage primaryStage) {
         // Init for Map and Robot
-        map = new Map();
-        newExploredMap = new Map();
+        java.util.Map<String, String> params = getParameters().getNamed();
+        mapHeight = Integer.parseInt(params.getOrDefault("height", Integer.toString(mapHeight)));
+        mapWidth = Integer.parseInt(params.getOrDefault("width", Integer.toString(mapWidth)));
+        map = new Map(mapHeight, mapWidth);
+        newExploredMap = new Map(mapHeight, mapWidth);
         // Set to all explored for loading and saving Map
         map.setAllExplored(true);
-        exploredMap = new Map();
+        exploredMap = new Map(mapHeight, mapWidth);
+        wayPoint = exploredMap.getGoalZone();
 
 
         // Default Location at the startzone
@@ -142,8 +150,8 @@ public class SimulatorNew extends Application {
         controlGrid.setVgap(5);
 
         // Drawing Component
-        mapGrid = new Canvas(MapConstants.MAP_CELL_SZ * MapConstants.MAP_WIDTH + 1 + MapConstants.MAP_OFFSET,
-                MapConstants.MAP_CELL_SZ * MapConstants.MAP_HEIGHT + 1 + MapConstants.MAP_OFFSET);
+        mapGrid = new Canvas(MapConstants.MAP_CELL_SZ * mapWidth + 1 + MapConstants.MAP_OFFSET,
+                MapConstants.MAP_CELL_SZ * mapHeight + 1 + MapConstants.MAP_OFFSET);
         gc = mapGrid.getGraphicsContext2D();
 
         animateTimer1 = new AnimationTimer() {
@@ -427,8 +435,8 @@ public class SimulatorNew extends Application {
                 dialog.initModality(Modality.APPLICATION_MODAL);
                 dialog.initOwner(primaryStage);
 
-                newMapGrid = new Canvas(MapConstants.MAP_CELL_SZ * MapConstants.MAP_WIDTH + 1 + MapConstants.MAP_OFFSET,
-                        MapConstants.MAP_CELL_SZ * MapConstants.MAP_HEIGHT + 1 + MapConstants.MAP_OFFSET);
+                newMapGrid = new Canvas(MapConstants.MAP_CELL_SZ * mapWidth + 1 + MapConstants.MAP_OFFSET,
+                        MapConstants.MAP_CELL_SZ * mapHeight + 1 + MapConstants.MAP_OFFSET);
                 newGC = newMapGrid.getGraphicsContext2D();
 
                 // Grid Settings for new map
@@ -688,29 +696,29 @@ public class SimulatorNew extends Application {
         gc.setStroke(MapConstants.CW_COLOR);
         gc.setLineWidth(5);
         // Draw the Cells on the Map Canvas
-        for (int row = 0; row < MapConstants.MAP_HEIGHT; row++) {
-            for (int col = 0; col < MapConstants.MAP_WIDTH; col++) {
+        for (int row = 0; row < mapHeight; row++) {
+            for (int col = 0; col < mapWidth; col++) {
                 // Select Color of the Cells
                 if (row <= MapConstants.STARTZONE_ROW + 1 && col <= MapConstants.STARTZONE_COL + 1)
                     gc.setFill(MapConstants.SZ_COLOR);
-                else if (row >= MapConstants.GOALZONE_ROW - 1 && col >= MapConstants.GOALZONE_COL - 1)
+                else if (row >= mapHeight - 3 && col >= mapWidth - 3)
                     gc.setFill(MapConstants.GZ_COLOR);
                 else {
 
                     if (explored) {
-                        if (exploredMap.getCell(row, col).isObstacle()) {
+                        if (exploredMap.isObstacle(row, col)) {
                             gc.setFill(MapConstants.OB_COLOR);
                         }
-                        else if (exploredMap.getCell(row, col).isPath())
+                        else if (exploredMap.isPath(row, col))
                             gc.setFill(MapConstants.PH_COLOR);
-                        else if (exploredMap.getCell(row, col).isMoveThru())
+                        else if (exploredMap.isMoveThru(row, col))
                             gc.setFill(MapConstants.THRU_COLOR);
-                        else if (exploredMap.getCell(row, col).isExplored())
+                        else if (exploredMap.isExplored(row, col))
                             gc.setFill(MapConstants.EX_COLOR);
                         else
                             gc.setFill(MapConstants.UE_COLOR);
                     } else {
-                        if (exploredMap.getCell(row, col).isObstacle()) {
+                        if (exploredMap.isObstacle(row, col)) {
                             gc.setFill(MapConstants.OB_COLOR);
                         }
                         else {
@@ -721,11 +729,11 @@ public class SimulatorNew extends Application {
 
                 // Draw the Cell on the Map based on the Position Indicated
                 gc.strokeRect(col * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2,
-                        (MapConstants.MAP_CELL_SZ - 1) * MapConstants.MAP_HEIGHT - row * MapConstants.MAP_CELL_SZ
+                        (MapConstants.MAP_CELL_SZ - 1) * mapHeight - row * MapConstants.MAP_CELL_SZ
                                 + MapConstants.MAP_OFFSET / 2,
                         MapConstants.MAP_CELL_SZ, MapConstants.MAP_CELL_SZ);
                 gc.fillRect(col * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2,
-                        (MapConstants.MAP_CELL_SZ - 1) * MapConstants.MAP_HEIGHT - row * MapConstants.MAP_CELL_SZ
+                        (MapConstants.MAP_CELL_SZ - 1) * mapHeight - row * MapConstants.MAP_CELL_SZ
                                 + MapConstants.MAP_OFFSET / 2,
                         MapConstants.MAP_CELL_SZ, MapConstants.MAP_CELL_SZ);
             }
@@ -734,14 +742,14 @@ public class SimulatorNew extends Application {
             if (wayPoint != null) {
                 gc.setFill(MapConstants.WP_COLOR);
                 gc.fillRect(wayPoint.getX() * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2,
-                        (MapConstants.MAP_CELL_SZ - 1) * MapConstants.MAP_HEIGHT
+                        (MapConstants.MAP_CELL_SZ - 1) * mapHeight
                                 - wayPoint.getY() * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2,
                         MapConstants.MAP_CELL_SZ, MapConstants.MAP_CELL_SZ);
                 gc.setFill(Color.BLACK);
                 gc.fillText("W",
                         wayPoint.getX() * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2
                                 + MapConstants.CELL_CM / 2,
-                        (MapConstants.MAP_CELL_SZ - 1) * MapConstants.MAP_HEIGHT
+                        (MapConstants.MAP_CELL_SZ - 1) * mapHeight
                                 - (wayPoint.getY() - 1) * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2
                                 - MapConstants.CELL_CM / 2);
             }
@@ -755,30 +763,30 @@ public class SimulatorNew extends Application {
         newGC.setLineWidth(2);
 
         // Draw the Cells on the Map Canvas
-        for (int row = 0; row < MapConstants.MAP_HEIGHT; row++) {
-            for (int col = 0; col < MapConstants.MAP_WIDTH; col++) {
+        for (int row = 0; row < mapHeight; row++) {
+            for (int col = 0; col < mapWidth; col++) {
                 // Select Color of the Cells
                 if (row <= MapConstants.STARTZONE_ROW + 1 && col <= MapConstants.STARTZONE_COL + 1)
                     newGC.setFill(MapConstants.SZ_COLOR);
-                else if (row >= MapConstants.GOALZONE_ROW - 1 && col >= MapConstants.GOALZONE_COL - 1)
+                else if (row >= mapHeight - 3 && col >= mapWidth - 3)
                     newGC.setFill(MapConstants.GZ_COLOR);
                 else {
                     if (alreadyExplored) {
-                        if (newExploredMap.getCell(row, col).isObstacle()) {
+                        if (newExploredMap.isObstacle(row, col)) {
                             newGC.setFill(MapConstants.OB_COLOR);
                         }
-                        else if (newExploredMap.getCell(row, col).isPath())
+                        else if (newExploredMap.isPath(row, col))
                             newGC.setFill(MapConstants.PH_COLOR);
-                        else if (newExploredMap.getCell(row, col).isMoveThru())
+                        else if (newExploredMap.isMoveThru(row, col))
                             newGC.setFill(MapConstants.THRU_COLOR);
-                        else if (newExploredMap.getCell(row, col).isExplored()) {
+                        else if (newExploredMap.isExplored(row, col)) {
                             newGC.setFill(MapConstants.EX_COLOR);
                         }
                         else
                             newGC.setFill(MapConstants.UE_COLOR);
                     } else {
 
-                        if (newExploredMap.getCell(row, col).isObstacle()) {
+                        if (newExploredMap.isObstacle(row, col)) {
                             newGC.setFill(MapConstants.OB_COLOR);
                         }
                         else {
@@ -789,11 +797,11 @@ public class SimulatorNew extends Application {
 
                 // Draw the Cell on the Map based on the Position Indicated
                 newGC.strokeRect(col * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2,
-                        (MapConstants.MAP_CELL_SZ - 1) * MapConstants.MAP_HEIGHT - row * MapConstants.MAP_CELL_SZ
+                        (MapConstants.MAP_CELL_SZ - 1) * mapHeight - row * MapConstants.MAP_CELL_SZ
                                 + MapConstants.MAP_OFFSET / 2,
                         MapConstants.MAP_CELL_SZ, MapConstants.MAP_CELL_SZ);
                 newGC.fillRect(col * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2,
-                        (MapConstants.MAP_CELL_SZ - 1) * MapConstants.MAP_HEIGHT - row * MapConstants.MAP_CELL_SZ
+                        (MapConstants.MAP_CELL_SZ - 1) * mapHeight - row * MapConstants.MAP_CELL_SZ
                                 + MapConstants.MAP_OFFSET / 2,
                         MapConstants.MAP_CELL_SZ, MapConstants.MAP_CELL_SZ);
             }
@@ -802,14 +810,14 @@ public class SimulatorNew extends Application {
             if (wayPoint != null) {
                 newGC.setFill(MapConstants.WP_COLOR);
                 newGC.fillRect(wayPoint.getX() * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2,
-                        (MapConstants.MAP_CELL_SZ - 1) * MapConstants.MAP_HEIGHT
+                        (MapConstants.MAP_CELL_SZ - 1) * mapHeight
                                 - wayPoint.getY() * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2,
                         MapConstants.MAP_CELL_SZ, MapConstants.MAP_CELL_SZ);
                 newGC.setFill(Color.BLACK);
                 newGC.fillText("W",
                         wayPoint.getX() * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2
                                 + MapConstants.CELL_CM / 2,
-                        (MapConstants.MAP_CELL_SZ - 1) * MapConstants.MAP_HEIGHT
+                        (MapConstants.MAP_CELL_SZ - 1) * mapHeight
                                 - (wayPoint.getY() - 1) * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2
                                 - MapConstants.CELL_CM / 2);
             }
@@ -829,7 +837,7 @@ public class SimulatorNew extends Application {
             Boolean isMainMap = false;
 
             int selectedCol = (int) ((mouseX - MapConstants.MAP_OFFSET / 2) / MapConstants.MAP_CELL_SZ);
-            int selectedRow = (int) (MapConstants.MAP_HEIGHT
+            int selectedRow = (int) (mapHeight
                     - (mouseY - MapConstants.MAP_OFFSET / 2) / MapConstants.MAP_CELL_SZ);
             // Debug Text
             System.out.println(map.getCell(selectedRow, selectedCol).toString() + " validMove:"
@@ -854,7 +862,7 @@ public class SimulatorNew extends Application {
 
 
             int selectedCol = (int) ((mouseX - MapConstants.MAP_OFFSET / 2) / MapConstants.MAP_CELL_SZ);
-            int selectedRow = (int) (MapConstants.MAP_HEIGHT
+            int selectedRow = (int) (mapHeight
                     - (mouseY - MapConstants.MAP_OFFSET / 2) / MapConstants.MAP_CELL_SZ);
             // Debug Text
             System.out.println(newExploredMap.getCell(selectedRow, selectedCol).toString() + " validMove:"
@@ -877,14 +885,8 @@ public class SimulatorNew extends Application {
     private boolean setObstacle(Map mapObj, int row, int col) {
         // Check to make sure the cell is valid and is not a existing obstacle
         if (mapObj.checkValidCell(row, col) && !mapObj.getCell(row, col).isObstacle()) {
+            // The map sets the virtual wall around the obstacle
             mapObj.getCell(row, col).setObstacle(true);
-
-            // Set the virtual wall around the obstacle
-            for (int r = row - 1; r <= row + 1; r++)
-                for (int c = col - 1; c <= col + 1; c++)
-                    if (mapObj.checkValidCell(r, c))
-                        mapObj.getCell(r, c).setVirtualWall(true);
-
             return true;
         }
         return false;
@@ -894,34 +896,13 @@ public class SimulatorNew extends Application {
     private boolean removeObstacle(Map mapObj, int row, int col) {
         // Check to make sure the cell is valid and is not a existing obstacle
         if (mapObj.checkValidCell(row, col) && mapObj.getCell(row, col).isObstacle()) {
+            // The map clears the virtual wall no longer next to any obstacle
             mapObj.getCell(row, col).setObstacle(false);
-
-            // Set the virtual wall around the obstacle
-            for (int r = row - 1; r <= row + 1; r++)
-                for (int c = col - 1; c <= col + 1; c++)
-                    if (mapObj.checkValidCell(r, c))
-                        mapObj.getCell(r, c).setVirtualWall(false);
-
-            reinitVirtualWall();
             return true;
         }
         return false;
     }
 
-    // Reinit virtual walls around obstacle
-    private void reinitVirtualWall() {
-        for (int row = 0; row < MapConstants.MAP_HEIGHT; row++) {
-            for (int col = 0; col < MapConstants.MAP_WIDTH; col++) {
-                if (map.getCell(row, col).isObstacle()) {
-                    for (int r = row - 1; r <= row + 1; r++)
-                        for (int c = col - 1; c <= col + 1; c++)
-                            if (map.checkValidCell(r, c))
-                                map.getCell(r, c).setVirtualWall(true);
-                }
-            }
-        }
-    }
-
     // Set waypoint
     private boolean setWayPoint(int row, int col) {
         if (exploredMap.wayPointClear(row, col)) {
@@ -981,6 +962,10 @@ public class SimulatorNew extends Application {
                         wayPoint = robot.parseWayPointJson(msg);
                         setWayPoint(wayPoint.y, wayPoint.x);
                     }
+                    if (msg.contains(NetworkConstants.MAP_DELTA_KEY)) {
+                        robot.setMapDelta(robot.parseMapDeltaJson(msg));
+                        LOGGER.info("Map delta updates: " + msg);
+                    }
                     // set startPos 
 //                    if (msg.contains(NetworkConstants.START_POINT_KEY)) {
 //                        startPos = robot.parseStartPointJson(msg);
@@ -1128,44 +1113,35 @@ public class SimulatorNew extends Application {
 
     class FastTask extends Task<Integer> {
 
-        public String getFastTaskCmd(ArrayList<Command> commands) {
-            System.out.println("getFastTaskCmd");
-            Command tempCmd;
-            int moves = 0;
-            StringBuilder cmdBuilder = new StringBuilder();
-            for (int i = 0; i < commands.size(); i++) {
-                tempCmd = commands.get(i);
-                if (tempCmd == Command.FORWARD && moves < RobotConstants.MAX_MOVE) {
-                    moves++;
-
-                    // if last cmd or moves == 9
-                    if (i == commands.size() - 1 || moves == RobotConstants.MAX_MOVE) {
-                        cmdBuilder.append(Command.ArduinoMove.values()[tempCmd.ordinal()]);
-                        cmdBuilder.append(moves);
-                        cmdBuilder.append('|');
-                        moves = 0;
+        //Execute one fastest path command, moving forward for the given number of cells
+        private void executeFastTaskCmd(Command cmd, int move, int steps) throws InterruptedException {
+            switch (cmd) {
+                case FORWARD:
+                    if (sim) {
+                        robot.move(Command.FORWARD, move, exploredMap, steps);
                     }
-                }
-                else {  // not forward
-                    if (moves > 0) {    // previous forward, append the forward moves first
-                        cmdBuilder.append(Command.ArduinoMove.values()[Command.FORWARD.ordinal()]);
-                        cmdBuilder.append(moves);
-                        cmdBuilder.append('|');
-
+                    else {
+                        robot.move(Command.FORWARD, move, exploredMap, RobotConstants.STEP_PER_SECOND);
+                        robot.sendAndroid(exploredMap);
+                        netMgr.receive();
                     }
-
-                    // turning
-                    cmdBuilder.append(Command.ArduinoMove.values()[tempCmd.ordinal()]);
-                    cmdBuilder.append('1');
-                    cmdBuilder.append('|');
-
-
-                    moves = 0;
-                }
+                    break;
+                case TURN_RIGHT:
+                case TURN_LEFT:
+                    if (sim) {
+                        robot.turn(cmd, steps);
+                    }
+                    else {
+                        // Added in for alignment
+//                        robot.align_front_no_update();
+//                        netMgr.receive();
+                        robot.turn(cmd, RobotConstants.STEP_PER_SECOND);
+                        robot.sendAndroid(exploredMap);
+                        // flush 3 sensor reading: align_front, turn, align_right
+                        netMgr.receive();
+                    }
+                    break;
             }
-
-            String cmds = cmdBuilder.toString();
-            return cmds;
         }
 
         @Override
@@ -1176,30 +1152,31 @@ public class SimulatorNew extends Application {
             double startT = System.currentTimeMillis();
             double endT = 0;
             FastestPath fp = new FastestPath(exploredMap, robot, sim);
+            // the map is fully known by now, so the path is read from the distance table when the arena fits in one
+            fp.setUseDistanceTable(true);
             ArrayList<Cell> path;
 
             System.out.println("Running A-Star algorithm to find fastest path");
             System.out.println("Robot position x:" + robot.getPos().x + "y: " +robot.getPos().y + "waypoint: "+ wayPoint.x + "," + wayPoint.y);
-            path = fp.runAStar(new Point(robot.getPos().x, robot.getPos().y), wayPoint, robot.getDir());
+            Point robotPos = new Point(robot.getPos().x, robot.getPos().y);
+            Point goal = exploredMap.getGoalZone();
+            // best path through the waypoint found within the planning budget, improved in the background until the robot starts moving
+            path = fp.startAnytime(robotPos, wayPoint, goal, robot.getDir());
             System.out.println("Fastest path determined");
-            path.addAll(fp.runAStar(wayPoint, new Point(MapConstants.GOALZONE_COL, MapConstants.GOALZONE_ROW), robot.getDir()));
 
-            fp.displayFastestPath(path, true);
-
-            ArrayList<Command> commands = fp.getPathCommands(path);
-
-            // execute the first command if it is turning
-            Command firstCmd = commands.get(0);
-            if (firstCmd == Command.TURN_LEFT) {
-                robot.turn(firstCmd, RobotConstants.STEP_PER_SECOND);
-                //Remove executed command from commands ArrayList
-                commands.remove(0);
+            // execute the first command if it is turning left, then plan again from the new direction
+            if (path != null) {
+                ArrayList<PathSegment> segments = fp.getPathSegments(robotPos, robot.getDir(), path);
+                if (!segments.isEmpty()) {
+                    ArrayList<Command> firstTurns = FastestPath.getTurnCommands(robot.getDir(), segments.get(0).getDir());
+                    if (!firstTurns.isEmpty() && firstTurns.get(0) == Command.TURN_LEFT) {
+                        fp.finishAnytime();
+                        robot.turn(Command.TURN_LEFT, RobotConstants.STEP_PER_SECOND);
+                        fp.startAnytime(robotPos, wayPoint, goal, robot.getDir());
+                    }
+                }
             }
 
-            // Get commands to execute fastest path in String format
-            String cmd = getFastTaskCmd(commands);
-            LOGGER.info("Checking FPCmdString: " + cmd);
-
             robot.setStatus("Ready to start fastest path. Waiting for command.\n");
             LOGGER.info(robot.getStatus());
 
@@ -1218,71 +1195,27 @@ public class SimulatorNew extends Application {
                 displayTimer.start();
             }
 
-            String[] cmdStr = cmd.split("\\|");
+            // the robot is about to move, take the best path found so far
+            path = fp.finishAnytime();
+            if (path == null) {
+                LOGGER.warning("No fastest path through the waypoint to the goal");
+                return 1;
+            }
+            fp.displayFastestPath(path, true);
+            ArrayList<PathSegment> segments = fp.getPathSegments(robotPos, robot.getDir(), path);
+
+            // Get commands to execute fastest path in String format
+            String cmd = FastestPath.getArduinoCommands(robot.getDir(), segments);
+            LOGGER.info("Checking FPCmdString: " + cmd);
 
             int steps = (int) stepsSB.getValue();
-            char firstChar;
-            int move;
-            for (String c: cmdStr) {
-                firstChar = c.charAt(0);
-                System.out.println(firstChar);
-                if (c.length() > 1) {
-                    move = Integer.parseInt(c.substring(1));
+            for (PathSegment segment : segments) {
+                for (Command turn : FastestPath.getTurnCommands(robot.getDir(), segment.getDir())) {
+                    executeFastTaskCmd(turn, 1, steps);
                 }
-                else {
-                    move = 1;
+                for (int remaining = segment.getSteps(); remaining > 0; remaining -= RobotConstants.MAX_MOVE) {
+                    executeFastTaskCmd(Command.FORWARD, Math.min(remaining, RobotConstants.MAX_MOVE), steps);
                 }
-                switch (firstChar) {
-                    case 'W':
-                        if (sim) {
-                            robot.move(Command.FORWARD, move, exploredMap, steps);
-                        }
-                        else {
-                            robot.move(Command.FORWARD, move, exploredMap, RobotConstants.STEP_PER_SECOND);
-                            robot.sendAndroid(exploredMap);
-                            netMgr.receive();
-                        }
-                        break;
-                    case 'S':
-                        if (sim) {
-                            robot.move(Command.BACKWARD, move, exploredMap, steps);
-                        }
-                        else {
-                            robot.move(Command.BACKWARD, move, exploredMap, RobotConstants.STEP_PER_SECOND);
-                            robot.sendAndroid(exploredMap);
-                            netMgr.receive();
-                        }
-                        break;
-                    case 'D':
-                        if (sim) {
-                            robot.turn(Command.TURN_RIGHT, steps);
-                        }
-                        else {
-                            // Added in for alignment
-//                            robot.align_front_no_update();
-//                            netMgr.receive();
-                            robot.turn(Command.TURN_RIGHT, RobotConstants.STEP_PER_SECOND);
-                            robot.sendAndroid(exploredMap);
-                            // flush 3 sensor reading: align_front, turn, align_right
-                            netMgr.receive();
-                        }
-                        break;
-                    case 'A':
-                        if (sim) {
-                            robot.turn(Command.TURN_LEFT, steps);
-                        }
-                        else {
-                            // Added in for alignment
-//                            robot.align_front_no_update();
-//                            netMgr.receive();
-                            robot.turn(Command.TURN_LEFT, RobotConstants.STEP_PER_SECOND);
-                            robot.sendAndroid(exploredMap);
-                            // flush 3 sensor reading: align_front, turn, align_right
-                            netMgr.receive();
-                        }
-                        break;
-                }
-
             }
             endT = System.currentTimeMillis();
             int seconds = (int)((endT - startT)/1000%60);
@@ -1369,14 +1302,14 @@ public class SimulatorNew extends Application {
         exploredMap.resetMap();
         mapDescriptor.loadRealMap(exploredMap, defaultMapPath);
         // just in case previously in actual mode map=null
-        map = new Map();
+        map = new Map(mapHeight, mapWidth);
         mapDescriptor.loadRealMap(map, defaultMapPath);
         startPos.setLocation(1, 1);
         startPosTxt.setText(String.format("(%d, %d)", 1, 1));
         if (wayPoint != null)
             exploredMap.getCell(wayPoint).setWayPoint(false);
-        wayPoint.setLocation(MapConstants.GOALZONE_COL, MapConstants.GOALZONE_ROW);
-        wayPointTxt.setText(String.format("(%d, %d)", MapConstants.GOALZONE_COL, MapConstants.GOALZONE_ROW));
+        wayPoint.setLocation(exploredMap.getGoalZone());
+        wayPointTxt.setText(String.format("(%d, %d)", wayPoint.x, wayPoint.y));
         rightRB.setSelected(true);
         robot = new Robot(sim, false, 1, 1, Direction.RIGHT);
         robot.setStatus("Reset to Start Zone");
@@ -1395,11 +1328,11 @@ public class SimulatorNew extends Application {
         int dirCol = 0, dirRow = 0;
 
         gc.strokeOval(col * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2,
-                (MapConstants.MAP_CELL_SZ - 1) * MapConstants.MAP_HEIGHT - row * MapConstants.MAP_CELL_SZ
+                (MapConstants.MAP_CELL_SZ - 1) * mapHeight - row * MapConstants.MAP_CELL_SZ
                         + MapConstants.MAP_OFFSET / 2,
                 3 * MapConstants.MAP_CELL_SZ, 3 * MapConstants.MAP_CELL_SZ);
         gc.fillOval(col * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2,
-                (MapConstants.MAP_CELL_SZ - 1) * MapConstants.MAP_HEIGHT - row * MapConstants.MAP_CELL_SZ
+                (MapConstants.MAP_CELL_SZ - 1) * mapHeight - row * MapConstants.MAP_CELL_SZ
                         + MapConstants.MAP_OFFSET / 2,
                 3 * MapConstants.MAP_CELL_SZ, 3 * MapConstants.MAP_CELL_SZ);
 
@@ -1423,7 +1356,7 @@ public class SimulatorNew extends Application {
                 break;
         }
         gc.fillOval(dirCol * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2,
-                (MapConstants.MAP_CELL_SZ - 1) * MapConstants.MAP_HEIGHT - dirRow * MapConstants.MAP_CELL_SZ
+                (MapConstants.MAP_CELL_SZ - 1) * mapHeight - dirRow * MapConstants.MAP_CELL_SZ
                         + MapConstants.MAP_OFFSET / 2,
                 MapConstants.MAP_CELL_SZ, MapConstants.MAP_CELL_SZ);
 
@@ -1431,7 +1364,7 @@ public class SimulatorNew extends Application {
         for (String sname : robot.getSensorList()) {
             Sensor s = robot.getSensorMap().get(sname);
             gc.fillText(s.getId(), s.getCol() * MapConstants.MAP_CELL_SZ + MapConstants.MAP_OFFSET / 2,
-                    (MapConstants.MAP_CELL_SZ) * MapConstants.MAP_HEIGHT - s.getRow() * MapConstants.MAP_CELL_SZ
+                    (MapConstants.MAP_CELL_SZ) * mapHeight - s.getRow() * MapConstants.MAP_CELL_SZ
                             + MapConstants.MAP_OFFSET / 2);
         }
 
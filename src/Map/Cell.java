@@ -2,22 +2,30 @@ package Map;
 
 import java.awt.Point;
 
+/**
+ * View of one cell of a Map. The flags are not stored in the cell but in the map, so reading or writing a flag
+ * reads or writes one bit of the map. Views are created on request; two views of the same cell are equal.
+ */
 public class Cell {
     // Position Variables
     private Point pos;
+    private int id;
 
-    // Exploration Booleans
-    private boolean explored;
-    private boolean obstacle;
-    private boolean virtualWall;
-    private boolean wayPoint;
-    private boolean moveThru;
-    private boolean path;
+    // Map that holds the flags of the cell
+    private Map map;
 
-    // Constructor
-    public Cell(Point pos) {
+    Cell(Map map, int id, Point pos) {
+        this.map = map;
+        this.id = id;
         this.pos = pos;
-        this.explored = false;  // initially all cells are unexplored
+    }
+
+    private boolean get(int flag) {
+        return map.store.get(flag, pos.y, pos.x);
+    }
+
+    private boolean set(int flag, boolean value) {
+        return map.store.set(flag, pos.y, pos.x, value);
     }
 
     // Getters and Setters
@@ -26,61 +34,71 @@ public class Cell {
     }
 
     public boolean isExplored() {
-        return explored;
+        return get(CellStore.EXPLORED);
     }
 
     public void setExplored(boolean explored) {
-        this.explored = explored;
+        map.setExplored(pos.y, pos.x, explored);
     }
 
     public boolean isObstacle() {
-        return obstacle;
+        return get(CellStore.OBSTACLE);
     }
 
     public void setObstacle(boolean obstacle) {
-        this.obstacle = obstacle;
+        map.setObstacle(pos.y, pos.x, obstacle);
     }
 
     public boolean isVirtualWall() {
-        return virtualWall;
+        return get(CellStore.VIRTUAL_WALL);
     }
 
     public void setVirtualWall(boolean virtualWall) {
-        this.virtualWall = virtualWall;
+        map.setVirtualWallFlag(pos.y, pos.x, virtualWall);
     }
 
     public boolean setWayPoint(boolean isWayPoint) {
-        if(!obstacle && explored && !virtualWall) {
-            this.wayPoint = isWayPoint;
+        if(!isObstacle() && isExplored() && !isVirtualWall()) {
+            set(CellStore.WAY_POINT, isWayPoint);
             return true;
         }
         return false;
     }
 
     public boolean isMoveThru() {
-        return moveThru;
+        return get(CellStore.MOVE_THRU);
     }
 
     public void setMoveThru(boolean moveThru) {
-        this.moveThru = moveThru;
+        set(CellStore.MOVE_THRU, moveThru);
     }
 
     public boolean isPath() {
-        return path;
+        return get(CellStore.PATH);
     }
 
     public void setPath(boolean path) {
-        this.path = path;
+        set(CellStore.PATH, path);
     }
 
     //Cell is movable is it has been explored and it is not obstacle or virtual wall
     public boolean movableCell() {
-        return explored && !obstacle && !virtualWall;
+        return map.checkValidMove(pos.y, pos.x);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Cell && ((Cell) o).map == map && ((Cell) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
     }
 
     @Override
     public String toString() {
-        return "Cell [pos=" + pos.toString().substring(14) + ", explored=" + explored + ", obstacle=" + obstacle + ", virtualWall=" + virtualWall
-                + ", isWayPoint=" + wayPoint + ", moveThru=" + moveThru + ", path=" + path + "]";
+        return "Cell [pos=" + pos.toString().substring(14) + ", explored=" + isExplored() + ", obstacle=" + isObstacle() + ", virtualWall=" + isVirtualWall()
+                + ", isWayPoint=" + get(CellStore.WAY_POINT) + ", moveThru=" + isMoveThru() + ", path=" + isPath() + "]";
     }
 }
@@ -0,0 +1,209 @@
+package Map;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Flags and obstacle counts of the cells of a map, stored in 16 x 16 tiles. A tile is only allocated when one of its
+ * cells is first given a flag (or is next to an obstacle), so the memory used grows with the part of the arena that
+ * has been explored rather than with the size of the arena.
+ *
+ * The flags of a tile are packed into one long[] with WORDS_PER_TILE words per flag, bit (row % 16) * 16 + col % 16.
+ */
+final class CellStore {
+
+    static final int EXPLORED = 0;
+    static final int OBSTACLE = 1;
+    static final int VIRTUAL_WALL = 2;
+    static final int MOVE_THRU = 3;
+    static final int PATH = 4;
+    static final int WAY_POINT = 5;
+    static final int CLEAR = 6;             //3x3 area around the cell explored and free of obstacles
+    private static final int NO_OF_FLAGS = 7;
+
+    static final int TILE_SHIFT = 4;
+    static final int TILE_SIZE = 1 << TILE_SHIFT;
+    private static final int TILE_MASK = TILE_SIZE - 1;
+    private static final int WORDS_PER_TILE = TILE_SIZE * TILE_SIZE / 64;
+
+    private final int height;
+    private final int width;
+    private final int tilesWide;
+    private final int tilesHigh;
+    private final long[][] flags;       //flags of each tile, null until a flag in the tile is set
+    private final byte[][] obstacleRefs; //obstacles in the 3x3 area around each cell of a tile, null until one is counted
+    private int noOfTiles;
+
+    CellStore(int height, int width) {
+        this.height = height;
+        this.width = width;
+        tilesWide = (width + TILE_MASK) >>> TILE_SHIFT;
+        tilesHigh = (height + TILE_MASK) >>> TILE_SHIFT;
+        flags = new long[tilesHigh * tilesWide][];
+        obstacleRefs = new byte[tilesHigh * tilesWide][];
+    }
+
+    private int getTile(int row, int col) {
+        return (row >>> TILE_SHIFT) * tilesWide + (col >>> TILE_SHIFT);
+    }
+
+    private static int getBit(int row, int col) {
+        return ((row & TILE_MASK) << TILE_SHIFT) | (col & TILE_MASK);
+    }
+
+    boolean get(int flag, int row, int col) {
+        long[] tile = flags[getTile(row, col)];
+        int bit = getBit(row, col);
+        return tile != null && (tile[flag * WORDS_PER_TILE + (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    //Explored and neither obstacle nor virtual wall, reading the tile once
+    boolean isMovable(int row, int col) {
+        long[] tile = flags[getTile(row, col)];
+        if (tile == null) {
+            return false;
+        }
+        int bit = getBit(row, col);
+        int w = bit >>> 6;
+        long mask = 1L << bit;
+        return (tile[EXPLORED * WORDS_PER_TILE + w] & mask) != 0 && (tile[OBSTACLE * WORDS_PER_TILE + w] & mask) == 0
+                && (tile[VIRTUAL_WALL * WORDS_PER_TILE + w] & mask) == 0;
+    }
+
+    //Set the flag of a cell, returns true if it changed
+    boolean set(int flag, int row, int col, boolean value) {
+        int t = getTile(row, col);
+        if (flags[t] == null) {
+            if (!value) {
+                return false;
+            }
+            flags[t] = new long[NO_OF_FLAGS * WORDS_PER_TILE];
+            noOfTiles++;
+        }
+        int bit = getBit(row, col);
+        int index = flag * WORDS_PER_TILE + (bit >>> 6);
+        long word = flags[t][index];
+        long updated = value ? word | (1L << bit) : word & ~(1L << bit);
+        flags[t][index] = updated;
+        return updated != word;
+    }
+
+    //Set or clear the flag of every cell, returns true if any cell changed
+    boolean fill(int flag, boolean value) {
+        boolean changed = false;
+        for (int t = 0; t < flags.length; t++) {
+            if (flags[t] == null) {
+                if (!value) {
+                    continue;
+                }
+                flags[t] = new long[NO_OF_FLAGS * WORDS_PER_TILE];
+                noOfTiles++;
+            }
+            for (int w = 0; w < WORDS_PER_TILE; w++) {
+                long word = value ? getCellMask(t, w) : 0;
+                changed |= flags[t][flag * WORDS_PER_TILE + w] != word;
+                flags[t][flag * WORDS_PER_TILE + w] = word;
+            }
+        }
+        return changed;
+    }
+
+    //Bits of a word of a tile that are cells of the arena (tiles on the last row or column may stick out)
+    private long getCellMask(int t, int w) {
+        int tileRow = (t / tilesWide) << TILE_SHIFT;
+        int tileCol = (t % tilesWide) << TILE_SHIFT;
+        int cols = Math.min(TILE_SIZE, width - tileCol);
+        long rowMask = cols == TILE_SIZE ? 0xFFFFL : (1L << cols) - 1;
+        long mask = 0;
+        for (int r = 0; r < 64 / TILE_SIZE; r++) {
+            if (tileRow + w * (64 / TILE_SIZE) + r < height) {
+                mask |= rowMask << (r * TILE_SIZE);
+            }
+        }
+        return mask;
+    }
+
+    //Clear all flags and counts, freeing the tiles
+    void clear() {
+        Arrays.fill(flags, null);
+        Arrays.fill(obstacleRefs, null);
+        noOfTiles = 0;
+    }
+
+    int getObstacleRefs(int row, int col) {
+        byte[] refs = obstacleRefs[getTile(row, col)];
+        return refs == null ? 0 : refs[getBit(row, col)];
+    }
+
+    //Add delta to the obstacle count of a cell, returns the new count
+    int addObstacleRefs(int row, int col, int delta) {
+        int t = getTile(row, col);
+        if (obstacleRefs[t] == null) {
+            obstacleRefs[t] = new byte[TILE_SIZE * TILE_SIZE];
+        }
+        return obstacleRefs[t][getBit(row, col)] += delta;
+    }
+
+    void clearObstacleRefs() {
+        Arrays.fill(obstacleRefs, null);
+    }
+
+    //Call action with the id (row * width + col) of every cell with the flag set, only visiting allocated tiles
+    void forEachSet(int flag, IntConsumer action) {
+        for (int t = 0; t < flags.length; t++) {
+            if (flags[t] == null) {
+                continue;
+            }
+            for (int w = 0; w < WORDS_PER_TILE; w++) {
+                long word = flags[t][flag * WORDS_PER_TILE + w];
+                while (word != 0) {
+                    int bit = (w << 6) + Long.numberOfTrailingZeros(word);
+                    int row = ((t / tilesWide) << TILE_SHIFT) + (bit >>> TILE_SHIFT);
+                    int col = ((t % tilesWide) << TILE_SHIFT) + (bit & TILE_MASK);
+                    action.accept(row * width + col);
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    int getTilesWide() {
+        return tilesWide;
+    }
+
+    int getTilesHigh() {
+        return tilesHigh;
+    }
+
+    //Check if any cell of tile t has the flag set
+    boolean anySet(int flag, int t) {
+        if (flags[t] == null) {
+            return false;
+        }
+        for (int w = 0; w < WORDS_PER_TILE; w++) {
+            if (flags[t][flag * WORDS_PER_TILE + w] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Check if every cell of the arena in tile t has the flag set
+    boolean allSet(int flag, int t) {
+        if (flags[t] == null) {
+            return false;
+        }
+        for (int w = 0; w < WORDS_PER_TILE; w++) {
+            long mask = getCellMask(t, w);
+            if ((flags[t][flag * WORDS_PER_TILE + w] & mask) != mask) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Number of tiles allocated, each holding the flags of TILE_SIZE * TILE_SIZE cells
+    int getNoOfTiles() {
+        return noOfTiles;
+    }
+}
@@ -3,21 +3,47 @@ package Map;
 public enum Direction {
 
     // Anti-clockwise
-    UP, LEFT, DOWN, RIGHT;
+    UP(1, 0), LEFT(0, -1), DOWN(-1, 0), RIGHT(0, 1);
+
+    //values() returns a new array on every call, search loops read this one instead
+    private static final Direction[] VALUES = values();
+
+    private final int dRow;
+    private final int dCol;
+
+    Direction(int dRow, int dCol) {
+        this.dRow = dRow;
+        this.dCol = dCol;
+    }
+
+    //Row increment when moving one cell in the direction
+    public int dRow() {
+        return dRow;
+    }
+
+    //Column increment when moving one cell in the direction
+    public int dCol() {
+        return dCol;
+    }
+
+    //Get the direction with the given ordinal
+    public static Direction get(int ordinal) {
+        return VALUES[ordinal];
+    }
 
     //Get the anti-clockwise direction of robot's current direction
     public static Direction getAntiClockwise(Direction curDirection) {
-        return values()[(curDirection.ordinal() + 1) % values().length];
+        return VALUES[(curDirection.ordinal() + 1) % VALUES.length];
     }
 
     //Get the clockwise direction of robot's current direction
     public static Direction getClockwise(Direction curDirection) {
-        return values()[(curDirection.ordinal() + values().length - 1) % values().length];
+        return VALUES[(curDirection.ordinal() + VALUES.length - 1) % VALUES.length];
     }
 
     //Get opposite direction of robot's current direction
     public static Direction getOpposite(Direction curDirection) {
-        return values()[(curDirection.ordinal() + 2) % values().length];
+        return VALUES[(curDirection.ordinal() + 2) % VALUES.length];
     }
 
 }
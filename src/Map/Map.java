@@ -2,114 +2,325 @@ package Map;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
 
 public class Map {
 
-    private final Cell[][] grid;
-    private double exploredPercentage;
-
+    private static final Logger LOGGER = Logger.getLogger(Map.class.getName());
+
+    private final int height;
+    private final int width;
+    private final int noOfCells;
+    private int exploredCount;  //number of explored cells, updated on every change of the explored flag
+
+    /**
+     * Flags of the cells, in tiles allocated as cells are explored. Cells are views created on request that read and
+     * write their flags here, so an unexplored part of the arena takes no memory.
+     *
+     * The store also keeps the number of obstacles in the 3x3 area around each cell. It is updated on every change of
+     * an obstacle flag, setting the virtual wall of a cell when it goes above 0 and clearing it (except on the edge of
+     * the arena) when it goes back to 0, so the virtual wall never has to be rebuilt from the whole map.
+     *
+     * In the same way the CLEAR flag of a cell (the robot centred on it covers only explored, obstacle free cells) is
+     * recomputed for the 3x3 area around every cell whose explored or obstacle flag changes, so clearForRobot reads
+     * one bit instead of nine cells.
+     */
+    final CellStore store;
+
+    /**
+     * Log of the ids of cells whose explored, obstacle or virtual wall flag changed, kept in a ring buffer.
+     * Consumers such as the path planner remember the change count they last saw and only revisit the cells
+     * changed since then. ALL_CELLS is logged when the whole map is reset.
+     */
+    public static final int ALL_CELLS = -1;
+    private static final int CHANGE_LOG_SIZE = 1024;
+    private final int[] changeLog = new int[CHANGE_LOG_SIZE];
+    private long changeCount = 0;
+
+    //Map of the default arena size
     public Map() {
-        grid = new Cell[MapConstants.MAP_HEIGHT][MapConstants.MAP_WIDTH];
+        this(MapConstants.MAP_HEIGHT, MapConstants.MAP_WIDTH);
+    }
+
+    public Map(int height, int width) {
+        if (height < 3 || width < 3) {
+            throw new IllegalArgumentException(String.format("Arena of %d x %d cells is too small for the robot", height, width));
+        }
+        this.height = height;
+        this.width = width;
+        noOfCells = height * width;
+        store = new CellStore(height, width);
         initMap();
     }
 
+    //Number of rows of the arena
+    public int getHeight() {
+        return height;
+    }
+
+    //Number of columns of the arena
+    public int getWidth() {
+        return width;
+    }
+
+    //Centre of the 3x3 goal zone, in the corner opposite the start zone
+    public Point getGoalZone() {
+        return new Point(width - 2, height - 2);
+    }
+
     private void initMap() {
-        // Init Cells on the grid
-        for (int row = 0; row < MapConstants.MAP_HEIGHT; row++) {
-            for (int col = 0; col < MapConstants.MAP_WIDTH; col++) {
-                grid[row][col] = new Cell(new Point(col, row));
-
-                // Init virtual wall
-                if (row == 0 || col == 0 || row == MapConstants.MAP_HEIGHT - 1 || col == MapConstants.MAP_WIDTH - 1) {
-                    grid[row][col].setVirtualWall(true);
-                }
-            }
+        // Clear all flags and init virtual wall on the edge of the arena
+        store.clear();
+        for (int row = 0; row < height; row++) {
+            store.set(CellStore.VIRTUAL_WALL, row, 0, true);
+            store.set(CellStore.VIRTUAL_WALL, row, width - 1, true);
         }
-        exploredPercentage = 0.00;
-
+        for (int col = 0; col < width; col++) {
+            store.set(CellStore.VIRTUAL_WALL, 0, col, true);
+            store.set(CellStore.VIRTUAL_WALL, height - 1, col, true);
+        }
+        exploredCount = 0;
+        recordChange(ALL_CELLS);
     }
 
     public void resetMap() {
         initMap();
     }
 
+    private boolean isBorder(int row, int col) {
+        return row == 0 || col == 0 || row == height - 1 || col == width - 1;
+    }
+
+    //Number of storage tiles allocated so far, for measuring memory use on large arenas
+    public int getNoOfTiles() {
+        return store.getNoOfTiles();
+    }
+
     //Set the explored variable for all cells
     public void setAllExplored(boolean explored) {
-        for (int row = 0; row < MapConstants.MAP_HEIGHT; row++) {
-            for (int col = 0; col < MapConstants.MAP_WIDTH; col++) {
-                grid[row][col].setExplored(explored);
-            }
+        if (store.fill(CellStore.EXPLORED, explored)) {
+            recordChange(ALL_CELLS);
         }
+        exploredCount = explored ? noOfCells : 0;
         if (explored) {
-            exploredPercentage = 100.00;
-        } else {
-            exploredPercentage = 0.00;
+            for (int row = 1; row < height - 1; row++) {
+                for (int col = 1; col < width - 1; col++) {
+                    store.set(CellStore.CLEAR, row, col, isAreaClear(row, col));
+                }
+            }
+        }
+        else {
+            store.fill(CellStore.CLEAR, false);
         }
     }
 
+    //Bring the explored count and clearance up to date after explored flags were written straight to the store
+    void exploredLoaded() {
+        int[] count = {0};
+        store.fill(CellStore.CLEAR, false);
+        store.forEachSet(CellStore.EXPLORED, id -> {
+            count[0]++;
+            store.set(CellStore.CLEAR, id / width, id % width, isAreaClear(id / width, id % width));
+        });
+        exploredCount = count[0];
+        recordChange(ALL_CELLS);
+    }
+
     //Set the moveThru variable for all cells
     public void setAllMoveThru(boolean moveThru) {
-        for (int row = 0; row < MapConstants.MAP_HEIGHT; row++) {
-            for (int col = 0; col < MapConstants.MAP_WIDTH; col++) {
-                grid[row][col].setMoveThru(moveThru);
-            }
-        }
+        store.fill(CellStore.MOVE_THRU, moveThru);
     }
 
     public double getExploredPercentage() {
-        updateExploredPercentage();
-        return this.exploredPercentage;
+        return (double) exploredCount / noOfCells * 100;
+    }
+
+    //Number of explored cells, kept up to date on every change instead of counted
+    public int getExploredCount() {
+        return exploredCount;
     }
 
-    private void updateExploredPercentage() {
-        double total = MapConstants.MAP_HEIGHT * MapConstants.MAP_WIDTH;
-        double explored = 0;
+    //Set the explored flag of a cell, keeping the explored count and clearance up to date
+    public void setExplored(int row, int col, boolean explored) {
+        checkCell(row, col);
+        if (store.set(CellStore.EXPLORED, row, col, explored)) {
+            exploredCount += explored ? 1 : -1;
+            updateClearance(row, col);
+            recordChange(row, col);
+        }
+    }
+
+    //Set the obstacle flag of a cell, keeping the virtual wall and clearance up to date
+    public void setObstacle(int row, int col, boolean obstacle) {
+        checkCell(row, col);
+        if (store.set(CellStore.OBSTACLE, row, col, obstacle)) {
+            recordChange(row, col);
+            obstacleChanged(row, col, obstacle);
+        }
+    }
+
+    //Update the virtual wall of the 3x3 area around a cell whose obstacle flag changed
+    private void obstacleChanged(int row, int col, boolean obstacle) {
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - 1; c <= col + 1; c++) {
+                if (!checkValidCell(r, c)) {
+                    continue;
+                }
+                int refs = store.addObstacleRefs(r, c, obstacle ? 1 : -1);
+                if (obstacle && refs == 1 || !obstacle && refs == 0 && !isBorder(r, c)) {
+                    setVirtualWallFlag(r, c, obstacle);
+                }
+            }
+        }
+        updateClearance(row, col);
+        if (MapConstants.VERIFY_VIRTUAL_WALL) {
+            verifyVirtualWall();
+        }
+    }
 
-        for (int row = 0; row < MapConstants.MAP_HEIGHT; row++) {
-            for (int col = 0; col < MapConstants.MAP_WIDTH; col++) {
-                if (grid[row][col].isExplored())
-                    explored++;
+    //Compare the virtual wall kept by obstacleChanged with a full rebuild, logging and repairing any difference
+    private void verifyVirtualWall() {
+        boolean[] expected = getFullVirtualWall();
+        for (int id = 0; id < noOfCells; id++) {
+            int row = id / width;
+            int col = id % width;
+            int refs = store.getObstacleRefs(row, col);
+            if ((refs > 0 || isBorder(row, col)) != expected[id] || expected[id] && !store.get(CellStore.VIRTUAL_WALL, row, col)) {
+                LOGGER.warning(String.format("Virtual wall of cell %d out of date, obstacle count %d", id, refs));
+                recountObstacles();
+                reinitializeVirtualWall();
+                return;
             }
         }
+    }
 
-        this.exploredPercentage = explored / total * 100;
+    //Count the obstacles around every cell again from the obstacle flags
+    private void recountObstacles() {
+        store.clearObstacleRefs();
+        store.forEachSet(CellStore.OBSTACLE, id -> {
+            for (int r = id / width - 1; r <= id / width + 1; r++) {
+                for (int c = id % width - 1; c <= id % width + 1; c++) {
+                    if (checkValidCell(r, c)) {
+                        store.addObstacleRefs(r, c, 1);
+                    }
+                }
+            }
+        });
+    }
+
+    //Id of a cell, row * width + col
+    public int getCellId(int row, int col) {
+        return row * width + col;
+    }
+
+    //Get cell using its id
+    public Cell getCellById(int id) {
+        return getCell(id / width, id % width);
+    }
+
+    void recordChange(int row, int col) {
+        recordChange(getCellId(row, col));
+    }
+
+    private void recordChange(int id) {
+        changeLog[(int) (changeCount % CHANGE_LOG_SIZE)] = id;
+        changeCount++;
+    }
+
+    //Number of cell changes recorded since the map was created
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    //Id of the cell changed by the given change number, ALL_CELLS if unknown because it is no longer in the log
+    public int getChangedCellId(long change) {
+        if (change < 0 || change >= changeCount || changeCount - change > CHANGE_LOG_SIZE) {
+            return ALL_CELLS;
+        }
+        return changeLog[(int) (change % CHANGE_LOG_SIZE)];
     }
 
     //Get cell using row and col
     public Cell getCell(int row, int col) {
-        return grid[row][col];
+        checkCell(row, col);
+        return new Cell(this, getCellId(row, col), new Point(col, row));
+    }
+
+    private void checkCell(int row, int col) {
+        if (!checkValidCell(row, col)) {
+            throw new IndexOutOfBoundsException(String.format("Cell (%d, %d) is outside the %d x %d arena", row, col, height, width));
+        }
+    }
+
+    //Flags of a cell read by row and col, for loops over many cells that do not need a Cell view
+    public boolean isExplored(int row, int col) {
+        return getFlag(CellStore.EXPLORED, row, col);
+    }
+
+    public boolean isObstacle(int row, int col) {
+        return getFlag(CellStore.OBSTACLE, row, col);
+    }
+
+    public boolean isMoveThru(int row, int col) {
+        return getFlag(CellStore.MOVE_THRU, row, col);
+    }
+
+    public boolean isPath(int row, int col) {
+        return getFlag(CellStore.PATH, row, col);
+    }
+
+    private boolean getFlag(int flag, int row, int col) {
+        checkCell(row, col);
+        return store.get(flag, row, col);
+    }
+
+    //Set the virtual wall flag of one cell, recording the change
+    void setVirtualWallFlag(int row, int col, boolean virtualWall) {
+        if (store.set(CellStore.VIRTUAL_WALL, row, col, virtualWall)) {
+            recordChange(row, col);
+        }
     }
 
     //Get cell using Point(x, y)
     public Cell getCell(Point pos) {
-        return grid[pos.y][pos.x];
+        return getCell(pos.y, pos.x);
     }
 
     //Check if the row and col is within the Map
     public boolean checkValidCell(int row, int col) {
-        return row >= 0 && col >= 0 && row < MapConstants.MAP_HEIGHT && col < MapConstants.MAP_WIDTH;
+        return row >= 0 && col >= 0 && row < height && col < width;
     }
 
     //Check if movement can be made in the rol, col
     public boolean checkValidMove(int row, int col) {
-        return checkValidCell(row, col) && !getCell(row, col).isVirtualWall() && !getCell(row, col).isObstacle() && getCell(row, col).isExplored();
+        return checkValidCell(row, col) && store.isMovable(row, col);
     }
 
-    //Set the moveThru para of the 3x3 grids moved through by the robot
+    //Set the moveThru para of the 3x3 grids moved through by the robot, clipped to the arena
     public void setPassThru(int row, int col) {
-        for (int r = row - 1; r <= row + 1; r++) {
-            for (int c = col - 1; c <= col + 1; c++) {
-                grid[r][c].setMoveThru(true);
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, height - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, width - 1); c++) {
+                store.set(CellStore.MOVE_THRU, r, c, true);
             }
         }
     }
 
-    //Create new virtual wall around new found obstacles
+    /**
+     * Create new virtual wall around new found obstacles, or clear it around a removed obstacle. Cells that are still
+     * next to another obstacle or on the edge of the arena keep their virtual wall.
+     */
     public void setVirtualWall(Cell obstacle, boolean isVirtualWall) {
-        for (int r = obstacle.getPos().y - 1; r <= obstacle.getPos().y + 1; r++) {
-            for (int c = obstacle.getPos().x - 1; c <= obstacle.getPos().x + 1; c++) {
-                if (checkValidCell(r, c)) {
-                    grid[r][c].setVirtualWall(isVirtualWall);
+        setVirtualWall(obstacle.getPos().y, obstacle.getPos().x, isVirtualWall);
+    }
+
+    //Same as setVirtualWall(Cell, boolean) for the obstacle at row and col
+    public void setVirtualWall(int row, int col, boolean isVirtualWall) {
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - 1; c <= col + 1; c++) {
+                if (checkValidCell(r, c) && (isVirtualWall || store.getObstacleRefs(r, c) == 0 && !isBorder(r, c))) {
+                    setVirtualWallFlag(r, c, isVirtualWall);
                 }
             }
         }
@@ -118,103 +329,114 @@ public class Map {
 
     //Get all movable neighbours Direction and Cell object
     public ArrayList<Cell> getNeighbours(Cell c) {
-
-        ArrayList<Cell> neighbours = new ArrayList<Cell>();
-        Point up = new Point(c.getPos().x, c.getPos().y + 1);
-        Point down = new Point(c.getPos().x, c.getPos().y - 1);
-        Point left = new Point(c.getPos().x - 1, c.getPos().y);
-        Point right = new Point(c.getPos().x + 1, c.getPos().y);
-
-        // UP
-        if (checkValidMove(up.y, up.x)) {
-            neighbours.add(getCell(up));
+        int[] ids = new int[Direction.values().length];
+        int count = getNeighbourIds(getCellId(c.getPos().y, c.getPos().x), ids);
+        ArrayList<Cell> neighbours = new ArrayList<Cell>(count);
+        for (int i = 0; i < count; i++) {
+            neighbours.add(getCellById(ids[i]));
         }
+        return neighbours;
+    }
 
-        // DOWN
-        if (checkValidMove(down.y, down.x)) {
-            neighbours.add(getCell(down));
+    /**
+     * Write the ids of the movable neighbours of a cell (up, down, left, right) into neighbours, which must have room
+     * for four, and return how many there are. Nothing is allocated, for use in search loops.
+     */
+    public int getNeighbourIds(int id, int[] neighbours) {
+        int row = id / width;
+        int col = id % width;
+        int count = 0;
+        if (checkValidMove(row + 1, col)) {
+            neighbours[count++] = id + width;
         }
-
-        // LEFT
-        if (checkValidMove(left.y, left.x)) {
-            neighbours.add(getCell(left));
+        if (checkValidMove(row - 1, col)) {
+            neighbours[count++] = id - width;
         }
-
-        // RIGHT
-        if (checkValidMove(right.y, right.x)) {
-            neighbours.add(getCell(right));
+        if (checkValidMove(row, col - 1)) {
+            neighbours[count++] = id - 1;
         }
+        if (checkValidMove(row, col + 1)) {
+            neighbours[count++] = id + 1;
+        }
+        return count;
+    }
 
-        return neighbours;
+    //Id of the next cell in a direction, -1 if it is outside the arena
+    public int getNeighbourId(int id, Direction dir) {
+        int row = id / width + dir.dRow();
+        int col = id % width + dir.dCol();
+        return checkValidCell(row, col) ? getCellId(row, col) : -1;
     }
 
     //Check if wayPoint is valid to move there cannot move to virtual wall
     public boolean wayPointClear(int row, int col) {
-        return checkValidCell(row, col) && !getCell(row, col).isVirtualWall() && !getCell(row, col).isObstacle();
+        return checkValidCell(row, col) && !store.get(CellStore.VIRTUAL_WALL, row, col) && !store.get(CellStore.OBSTACLE, row, col);
     }
 
     //Check whether a particular grid is clear for robot to move through
     public boolean clearForRobot(int row, int col) {
+        return checkValidCell(row, col) && store.get(CellStore.CLEAR, row, col);
+    }
+
+    //Recompute the clear flag of the cells whose 3x3 area contains the changed cell
+    private void updateClearance(int row, int col) {
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - 1; c <= col + 1; c++) {
+                if (checkValidCell(r, c)) {
+                    store.set(CellStore.CLEAR, r, c, isAreaClear(r, c));
+                }
+            }
+        }
+    }
+
+    //Check every cell of the 3x3 area, for updating the clear flag
+    private boolean isAreaClear(int row, int col) {
         for (int r = row - 1; r <= row + 1; r++) {
             for (int c = col - 1; c <= col + 1; c++) {
-                if (!checkValidCell(r, c) || !grid[r][c].isExplored() || grid[r][c].isObstacle())
+                if (!checkValidCell(r, c) || !store.get(CellStore.EXPLORED, r, c) || store.get(CellStore.OBSTACLE, r, c))
                     return false;
             }
         }
         return true;
     }
 
-    //Return the nearest unexplored cell from a location
+    //Return the nearest unexplored cell from a location, ties going to the lowest cell id
     public Cell nearestUnexploredCell(Point loc) {
-        double dist = 1000, tempDist;
-        Cell nearest = null, tempCell;
-
-        for (int row = 0; row < MapConstants.MAP_HEIGHT; row++) {
-            for (int col = 0; col < MapConstants.MAP_WIDTH; col++) {
-                tempCell = grid[row][col];
-                tempDist = loc.distance(tempCell.getPos());
-                if ((!tempCell.isExplored()) && (tempDist < dist)) {
-                    nearest = tempCell;
-                    dist = tempDist;
-                }
+        long[] best = {Long.MAX_VALUE, -1};   //squared distance, cell id
+        forTilesNear(loc, () -> best[0], t -> {
+            if (store.allSet(CellStore.EXPLORED, t)) {
+                return;
             }
-        }
-        return nearest;
+            forCellsOfTile(t, (row, col) -> {
+                if (!store.get(CellStore.EXPLORED, row, col)) {
+                    long d = distanceSq(loc, row, col);
+                    if (d < best[0] || d == best[0] && getCellId(row, col) < best[1]) {
+                        best[0] = d;
+                        best[1] = getCellId(row, col);
+                    }
+                }
+            });
+        });
+        return best[1] == -1 ? null : getCellById((int) best[1]);
     }
 
     //Get all movable neighbours Direction and Cell object
     public Point getNeighbour(Point pos, Direction surfDir) {
-
-        Point n = null;
-
-        switch (surfDir) {
-            case UP:
-                n = new Point(pos.x, pos.y + 1);
-                break;
-            case DOWN:
-                n = new Point(pos.x, pos.y - 1);
-                break;
-            case LEFT:
-                n = new Point(pos.x - 1, pos.y);
-                break;
-            case RIGHT:
-                n = new Point(pos.x + 1, pos.y);
-                break;
-        }
-        return n;
+        return new Point(pos.x + surfDir.dCol(), pos.y + surfDir.dRow());
     }
 
     //Return the nearest obstacle surface
     public ObsSurface nearestObstacleSurface(Point loc, ArrayList<ObsSurface> notYetTaken) {
         double dist = 1000, tempDist;
-        Point tempPos;
+        int tempRow, tempCol;
         ObsSurface nearest = null;
 
         for (ObsSurface obstacle : notYetTaken) {
 //            tempPos = obstacle.getPos();
             // neighbour cell of that surface
-            tempPos = getNeighbour(obstacle.getPos(), obstacle.getSurface());
-            tempDist = loc.distance(tempPos);
+            tempRow = obstacle.getPos().y + (obstacle.getSurface() == Direction.UP ? 1 : obstacle.getSurface() == Direction.DOWN ? -1 : 0);
+            tempCol = obstacle.getPos().x + (obstacle.getSurface() == Direction.RIGHT ? 1 : obstacle.getSurface() == Direction.LEFT ? -1 : 0);
+            tempDist = loc.distance(tempCol, tempRow);
             if (tempDist < dist) {
                 dist = tempDist;
                 nearest = obstacle;
@@ -223,33 +445,93 @@ public class Map {
         return nearest;
     }
 
-    //Return the nearest explored but not move through cell given the nearest unexplored cell
+    //Return the nearest explored but not move through cell given the nearest unexplored cell, ties going to the cell nearest the robot
     public Cell nearestExploredCell(Point loc, Point botLoc) {
-        Cell cell, nearest = null;
-        double distance = 1000;
-        double botDistance = 1000;
-
-        for (int row = 0; row < MapConstants.MAP_HEIGHT; row++) {
-            for (int col = 0; col < MapConstants.MAP_WIDTH; col++) {
-                cell = grid[row][col];
-                if (checkValidMove(row, col) && clearForRobot(row, col) && areaMoveThru(row, col)) {
-                    if ((distance > loc.distance(cell.getPos()) && cell.getPos().distance(botLoc) < botDistance)) {       // actually no need to check for botLoc
-                        nearest = cell;
-                        distance = loc.distance(cell.getPos());
-                        botDistance = cell.getPos().distance(botLoc);
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, -1};   //squared distance to loc, to botLoc, cell id
+        forTilesNear(loc, () -> best[0], t -> {
+            if (!store.anySet(CellStore.CLEAR, t)) {    //no cell of the tile can hold the robot
+                return;
+            }
+            forCellsOfTile(t, (row, col) -> {
+                if (clearForRobot(row, col) && checkValidMove(row, col) && areaMoveThru(row, col)) {
+                    long d = distanceSq(loc, row, col);
+                    long botD = distanceSq(botLoc, row, col);
+                    int id = getCellId(row, col);
+                    if (d < best[0] || d == best[0] && (botD < best[1] || botD == best[1] && id < best[2])) {
+                        best[0] = d;
+                        best[1] = botD;
+                        best[2] = id;
                     }
                 }
-            }
-        }
+            });
+        });
+        Cell nearest = best[2] == -1 ? null : getCellById((int) best[2]);
         System.out.println(nearest);
         return nearest;
     }
 
-    //Check whether the entire area was moved through by the robot
+    private interface CellVisitor {
+        void visit(int row, int col);
+    }
+
+    /**
+     * Visit the storage tiles in rings around the tile of loc, skipping tiles further from loc than bound and stopping
+     * once a whole ring is. The visitor lowers the bound as it finds cells, so a query only reads the tiles up to
+     * the distance of its answer instead of the whole map.
+     */
+    private void forTilesNear(Point loc, LongSupplier bound, IntConsumer visitor) {
+        int tilesWide = store.getTilesWide();
+        int tilesHigh = store.getTilesHigh();
+        int locTileRow = Math.max(0, Math.min(tilesHigh - 1, loc.y >> CellStore.TILE_SHIFT));
+        int locTileCol = Math.max(0, Math.min(tilesWide - 1, loc.x >> CellStore.TILE_SHIFT));
+        int rings = Math.max(Math.max(locTileRow, tilesHigh - 1 - locTileRow), Math.max(locTileCol, tilesWide - 1 - locTileCol));
+        for (int ring = 0; ring <= rings; ring++) {
+            long ringDist = ring == 0 ? 0 : (long) (ring - 1) * CellStore.TILE_SIZE + 1;
+            if (ringDist * ringDist > bound.getAsLong()) {
+                return;
+            }
+            for (int tileRow = locTileRow - ring; tileRow <= locTileRow + ring; tileRow++) {
+                if (tileRow < 0 || tileRow >= tilesHigh) {
+                    continue;
+                }
+                //Only the first and last row of the ring have tiles in between the two sides
+                int step = tileRow == locTileRow - ring || tileRow == locTileRow + ring ? 1 : Math.max(1, 2 * ring);
+                for (int tileCol = locTileCol - ring; tileCol <= locTileCol + ring; tileCol += step) {
+                    if (tileCol < 0 || tileCol >= tilesWide) {
+                        continue;
+                    }
+                    int row = Math.max(tileRow << CellStore.TILE_SHIFT, Math.min(loc.y, ((tileRow + 1) << CellStore.TILE_SHIFT) - 1));
+                    int col = Math.max(tileCol << CellStore.TILE_SHIFT, Math.min(loc.x, ((tileCol + 1) << CellStore.TILE_SHIFT) - 1));
+                    if (distanceSq(loc, row, col) <= bound.getAsLong()) {
+                        visitor.accept(tileRow * tilesWide + tileCol);
+                    }
+                }
+            }
+        }
+    }
+
+    //Visit the cells of a tile that are inside the arena
+    private void forCellsOfTile(int t, CellVisitor visitor) {
+        int firstRow = (t / store.getTilesWide()) << CellStore.TILE_SHIFT;
+        int firstCol = (t % store.getTilesWide()) << CellStore.TILE_SHIFT;
+        for (int row = firstRow; row < Math.min(height, firstRow + CellStore.TILE_SIZE); row++) {
+            for (int col = firstCol; col < Math.min(width, firstCol + CellStore.TILE_SIZE); col++) {
+                visitor.visit(row, col);
+            }
+        }
+    }
+
+    private static long distanceSq(Point loc, int row, int col) {
+        long dx = col - loc.x;
+        long dy = row - loc.y;
+        return dx * dx + dy * dy;
+    }
+
+    //Check whether the entire area was moved through by the robot, cells outside the arena are skipped
     public boolean areaMoveThru(int row, int col) {
-        for (int r = row - 1; r <= row + 1; r++) {
-            for (int c = col - 1; c <= col + 1; c++) {
-                if (!grid[r][c].isMoveThru()) {
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, height - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, width - 1); c++) {
+                if (!store.get(CellStore.MOVE_THRU, r, c)) {
                     return true;
                 }
             }
@@ -259,11 +541,7 @@ public class Map {
 
     //Remove existing cell with path
     public void removePaths() {
-        for (int r = 0; r < MapConstants.MAP_HEIGHT; r++) {
-            for (int c = 0; c < MapConstants.MAP_WIDTH; c++) {
-                grid[r][c].setPath(false);
-            }
-        }
+        store.fill(CellStore.PATH, false);
     }
 
     //Get the moving direction from point A to point B. (provided A or B has same x or y)
@@ -279,21 +557,49 @@ public class Map {
         }
     }
 
-    //reinit virtual wall when removing phantom blocks
+    //reinit virtual wall when removing phantom blocks (obstacle changes already keep it up to date)
     public void reinitializeVirtualWall() {
-        for (int row = 0; row < MapConstants.MAP_HEIGHT; row++) {
-            for (int col = 0; col < MapConstants.MAP_WIDTH; col++) {
-                // Init Virtual wall
-                if (row == 0 || col == 0 || row == MapConstants.MAP_HEIGHT - 1 || col == MapConstants.MAP_WIDTH - 1) {
-                    grid[row][col].setVirtualWall(true);
-                }
-                if (grid[row][col].isObstacle()) {
-                    for (int r = row - 1; r <= row + 1; r++)
-                        for (int c = col - 1; c <= col + 1; c++)
-                            if (checkValidCell(r, c))
-                                grid[r][c].setVirtualWall(true);
+        // Only set (never clear) virtual walls, logging every cell that changed
+        for (int row = 0; row < height; row++) {
+            setVirtualWallAndRecord(row, 0);
+            setVirtualWallAndRecord(row, width - 1);
+        }
+        for (int col = 0; col < width; col++) {
+            setVirtualWallAndRecord(0, col);
+            setVirtualWallAndRecord(height - 1, col);
+        }
+        store.forEachSet(CellStore.OBSTACLE, id -> {
+            for (int r = id / width - 1; r <= id / width + 1; r++) {
+                for (int c = id % width - 1; c <= id % width + 1; c++) {
+                    if (checkValidCell(r, c)) {
+                        setVirtualWallAndRecord(r, c);
+                    }
                 }
             }
+        });
+    }
+
+    private void setVirtualWallAndRecord(int row, int col) {
+        if (store.set(CellStore.VIRTUAL_WALL, row, col, true)) {
+            recordChange(row, col);
         }
     }
+
+    //Virtual wall on the edge of the arena and on the 3x3 area around every obstacle, rebuilt from the obstacle flags
+    boolean[] getFullVirtualWall() {
+        boolean[] wall = new boolean[noOfCells];
+        for (int id = 0; id < noOfCells; id++) {
+            wall[id] = isBorder(id / width, id % width);
+        }
+        store.forEachSet(CellStore.OBSTACLE, id -> {
+            for (int r = id / width - 1; r <= id / width + 1; r++) {
+                for (int c = id % width - 1; c <= id % width + 1; c++) {
+                    if (checkValidCell(r, c)) {
+                        wall[getCellId(r, c)] = true;
+                    }
+                }
+            }
+        });
+        return wall;
+    }
 }
@@ -6,6 +6,7 @@ public class MapConstants {
 
     // Public Map Variables
     public static final short CELL_CM = 10;
+    // Default arena size, other sizes can be given to the Map constructor
     public static final short MAP_HEIGHT = 20;
     public static final short MAP_WIDTH = 15;
     public static final short GOALZONE_ROW = MAP_HEIGHT - 2;
@@ -13,6 +14,9 @@ public class MapConstants {
     public static final short STARTZONE_ROW = 1;
     public static final short STARTZONE_COL = 1;
 
+    // Check the virtual wall kept up to date on every obstacle change against a full rebuild (slow, for debugging)
+    public static final boolean VERIFY_VIRTUAL_WALL = false;
+
     //Graphic Constants
     public static final Color SZ_COLOR = Color.BLUE;   //Start Zone Color
     public static final Color GZ_COLOR = Color.LIGHTSEAGREEN;  //Goal Zone Color
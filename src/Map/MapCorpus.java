@@ -0,0 +1,166 @@
+package Map;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Many arenas of the same size in one binary file, for regression and benchmark runs. The file is memory mapped and
+ * each map is read straight from the mapping into a Map, with no text parsing or per map file.
+ *
+ * Format (big endian): header of MAGIC, VERSION, height, width and number of maps as ints, then one fixed size record
+ * per map: the explored bit of every cell then the obstacle bit of every cell, each row by row from (0, 0), packed
+ * most significant bit first into ceil(height * width / 8) bytes. Unlike MDF part 2 the obstacle bits cover every
+ * cell, so every record has the same size and can be found by its index.
+ */
+public class MapCorpus {
+
+    private static final Logger LOGGER = Logger.getLogger(MapCorpus.class.getName());
+
+    private static final int MAGIC = 0x4d444643;    //"MDFC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+    private final MappedByteBuffer buffer;
+    private final int height;
+    private final int width;
+    private final int size;
+    private final int planeSize;    //bytes of one bit plane of a record
+
+    //Map a corpus file for reading
+    public MapCorpus(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(String.format("%s is not a map corpus, size %d bytes", filename, channel.size()));
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException(filename + " is not a map corpus of version " + VERSION);
+        }
+        height = buffer.getInt(8);
+        width = buffer.getInt(12);
+        size = buffer.getInt(16);
+        if (height < 3 || width < 3 || size < 0) {
+            throw new IOException(String.format("Map corpus %s has invalid header: %d x %d, %d maps", filename, height, width, size));
+        }
+        planeSize = getPlaneSize(height, width);
+        if ((long) HEADER_SIZE + (long) size * 2 * planeSize > buffer.capacity()) {
+            throw new IOException(String.format("Map corpus %s is truncated, %d maps expected", filename, size));
+        }
+        LOGGER.info(String.format("Map corpus %s: %d maps of %d x %d", filename, size, height, width));
+    }
+
+    //Number of maps in the corpus
+    public int size() {
+        return size;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    //New map of the corpus arena size holding map index
+    public Map getMap(int index) {
+        Map map = new Map(height, width);
+        loadMap(index, map);
+        return map;
+    }
+
+    /**
+     * Reset map and load map index of the corpus into it. The map must have the corpus arena size; reusing one map
+     * for every index avoids allocating its storage again for each arena.
+     */
+    public void loadMap(int index, Map map) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Map %d is outside the corpus of %d maps", index, size));
+        }
+        if (map.getHeight() != height || map.getWidth() != width) {
+            throw new IllegalArgumentException(String.format("Map of %d x %d cannot hold a corpus map of %d x %d",
+                    map.getHeight(), map.getWidth(), height, width));
+        }
+        map.resetMap();
+        int record = HEADER_SIZE + index * 2 * planeSize;
+        //explored bits go straight to the store with the clearance rebuilt once, obstacles keep their virtual wall
+        loadPlane(record, map, false);
+        map.exploredLoaded();
+        loadPlane(record + planeSize, map, true);
+    }
+
+    //Set the flag of every cell whose bit is set in the plane, skipping empty bytes
+    private void loadPlane(int offset, Map map, boolean obstacle) {
+        int noOfCells = height * width;
+        for (int i = 0; i < planeSize; i++) {
+            int bits = buffer.get(offset + i) & 0xff;
+            while (bits != 0) {
+                int bit = Integer.numberOfLeadingZeros(bits) - 24;
+                int id = i * 8 + bit;
+                if (id < noOfCells) {
+                    if (obstacle) {
+                        map.setObstacle(id / width, id % width, true);
+                    }
+                    else {
+                        map.store.set(CellStore.EXPLORED, id / width, id % width, true);
+                    }
+                }
+                bits &= ~(0x80 >>> bit);
+            }
+        }
+    }
+
+    //Write maps, all of the same arena size, into a corpus file
+    public static void write(String filename, Iterable<Map> maps) throws IOException {
+        Map first = maps.iterator().hasNext() ? maps.iterator().next() : null;
+        if (first == null) {
+            throw new IllegalArgumentException("Map corpus needs at least one map");
+        }
+        int height = first.getHeight();
+        int width = first.getWidth();
+        int count = 0;
+        for (Map map : maps) {
+            if (map.getHeight() != height || map.getWidth() != width) {
+                throw new IllegalArgumentException(String.format("Map of %d x %d in a corpus of %d x %d",
+                        map.getHeight(), map.getWidth(), height, width));
+            }
+            count++;
+        }
+
+        byte[] plane = new byte[getPlaneSize(height, width)];
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(height);
+            out.writeInt(width);
+            out.writeInt(count);
+            for (Map map : maps) {
+                out.write(packPlane(map, CellStore.EXPLORED, plane));
+                out.write(packPlane(map, CellStore.OBSTACLE, plane));
+            }
+        }
+        LOGGER.info(String.format("Map corpus %s written: %d maps of %d x %d", filename, count, height, width));
+    }
+
+    //Pack one flag of every cell into plane, most significant bit first
+    private static byte[] packPlane(Map map, int flag, byte[] plane) {
+        Arrays.fill(plane, (byte) 0);
+        map.store.forEachSet(flag, id -> plane[id >>> 3] |= (byte) (0x80 >>> (id & 7)));
+        return plane;
+    }
+
+    private static int getPlaneSize(int height, int width) {
+        return (height * width + 7) / 8;
+    }
+}
@@ -0,0 +1,135 @@
+package Map;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.logging.Logger;
+
+/**
+ * Tracks which map updates the receiver (Android) has acknowledged, so that an update only has to list the cells whose
+ * explored or obstacle flag differs from the last acknowledged one. Every update sent is numbered and a snapshot of
+ * the two flags is kept until it is acknowledged or dropped. A full update (keyframe) is needed when nothing has been
+ * acknowledged yet, every KEYFRAME_INTERVAL updates so a receiver that lost an update catches up, and when
+ * MAX_PENDING updates are waiting for an acknowledgement.
+ */
+public class MapDelta {
+
+    private static final Logger LOGGER = Logger.getLogger(MapDelta.class.getName());
+
+    public static final int KEYFRAME_INTERVAL = 20;
+    private static final int MAX_PENDING = 32;  //snapshots kept for updates not yet acknowledged
+
+    private static final class Snapshot {
+        final int seq;
+        final BitSet explored;
+        final BitSet obstacle;
+
+        Snapshot(int seq, BitSet explored, BitSet obstacle) {
+            this.seq = seq;
+            this.explored = explored;
+            this.obstacle = obstacle;
+        }
+    }
+
+    private final ArrayDeque<Snapshot> pending = new ArrayDeque<Snapshot>();
+    private Snapshot acked;
+    private Map ackedMap;
+    private int nextSeq = 0;
+    private int sinceKeyframe = 0;
+
+    //Sequence number of the next update
+    public int getNextSeq() {
+        return nextSeq;
+    }
+
+    //Sequence number of the update the next delta is relative to, -1 if there is none
+    public int getBaseSeq() {
+        return acked == null ? -1 : acked.seq;
+    }
+
+    //Check if the next update of the map has to be a full one, also when one more update would drop a pending one
+    public boolean needsKeyframe(Map map) {
+        return acked == null || ackedMap != map || sinceKeyframe >= KEYFRAME_INTERVAL || pending.size() >= MAX_PENDING;
+    }
+
+    /**
+     * Record that the next update of the map is being sent, and return the ids of the cells to list in it, in
+     * increasing order. These are the cells whose explored or obstacle flag differs from the acknowledged update in
+     * this or any update sent since, so the delta is right whichever of those the receiver has applied.
+     * A keyframe does not need the ids, but is recorded the same way so it can become the base of the following deltas.
+     * A delta can only be sent when needsKeyframe is false, otherwise IllegalStateException is thrown.
+     */
+    public int[] send(Map map, boolean keyframe) {
+        if (!keyframe && needsKeyframe(map)) {
+            throw new IllegalStateException("Map update " + nextSeq + " has to be a keyframe");
+        }
+        if (ackedMap != map) {
+            pending.clear();
+            acked = null;
+            ackedMap = map;
+        }
+        BitSet changed = new BitSet();
+        if (!keyframe) {
+            for (Snapshot snapshot : pending) {
+                addChanges(changed, snapshot);
+            }
+        }
+        Snapshot snapshot = new Snapshot(nextSeq++, getFlags(map, CellStore.EXPLORED), getFlags(map, CellStore.OBSTACLE));
+        pending.addLast(snapshot);
+        if (pending.size() > MAX_PENDING) {
+            //only for a keyframe: the changes of the dropped update could no longer be listed, so wait for its ack
+            pending.removeFirst();
+            acked = null;
+        }
+        sinceKeyframe = keyframe ? 0 : sinceKeyframe + 1;
+        if (keyframe) {
+            return new int[0];
+        }
+        addChanges(changed, snapshot);
+        return changed.stream().toArray();
+    }
+
+    //Add the cells where a snapshot differs from the acknowledged one
+    private void addChanges(BitSet changed, Snapshot snapshot) {
+        BitSet diff = (BitSet) snapshot.explored.clone();
+        diff.xor(acked.explored);
+        changed.or(diff);
+        diff = (BitSet) snapshot.obstacle.clone();
+        diff.xor(acked.obstacle);
+        changed.or(diff);
+    }
+
+    //The receiver has applied update seq; later deltas are relative to it. Older snapshots are dropped.
+    public void acknowledge(int seq) {
+        if (pending.stream().noneMatch(snapshot -> snapshot.seq == seq)) {
+            //drop nothing, the snapshots are still needed for the deltas
+            LOGGER.warning("Acknowledged map update " + seq + " is not pending, ignored");
+            return;
+        }
+        Iterator<Snapshot> it = pending.iterator();
+        while (it.hasNext()) {
+            Snapshot snapshot = it.next();
+            if (snapshot.seq <= seq) {
+                it.remove();
+                if (snapshot.seq == seq) {
+                    acked = snapshot;
+                    return;
+                }
+            }
+        }
+    }
+
+    //Forget all acknowledged updates, so the next update is a keyframe
+    public void reset() {
+        pending.clear();
+        acked = null;
+        ackedMap = null;
+        sinceKeyframe = 0;
+    }
+
+    private static BitSet getFlags(Map map, int flag) {
+        BitSet bits = new BitSet(map.getHeight() * map.getWidth());
+        map.store.forEachSet(flag, bits::set);
+        return bits;
+    }
+}
@@ -11,6 +11,19 @@ public class MapDescriptor {
     private String hexMapStr2;
     private String filename;
 
+    /**
+     * MDF strings of the last map published with getMDFString1 and getMDFString2, kept up to date from the change log
+     * of the map. Part 1 has one bit per cell, so only the digits of the cells changed since the last call are
+     * rewritten. Part 2 shifts whenever a cell is explored, so it is encoded again, but only if the map has changed.
+     */
+    private Map liveMap;
+    private char[] liveMDF1;
+    private char[] liveMDF2;
+    private String liveStr1;
+    private String liveStr2;
+    private long mdf1Seen;      //map change count liveMDF1 is up to date with
+    private long mdf2Seen;
+
     /**
      * Construct Map descriptor for when there is no input real Map text file
      */
@@ -39,114 +52,185 @@ public class MapDescriptor {
         buf.close();
     }
 
-    //Right pad "0" to the binary string so that its length is in multiple of 4
-    private static String rightPadTo4(String biStr) {
-        int check = biStr.length() % 4;
-        if (check != 0) {
-            int to_pad = 4 - check;
-            LOGGER.log(Level.FINER, "Length of binary string not divisible by 4.");
-            LOGGER.log(Level.FINER, "Length of string: {0}, Right Padding: {1}", new Object[]{biStr.length(), to_pad});
-            StringBuilder padding = new StringBuilder();
-            for (int i = 0; i < to_pad; i++) {
-                padding.append('0');
+    //part 1: unexplored cells '0', explored cells '1'
+    public static String generateMDFString1(Map map) {
+        char[] out = new char[getMDFLength1(map)];
+        return new String(out, 0, encodeMDFString1(map, out));
+    }
+
+    //part 2: for explored cells: not obstacle '0', obstacle '0'
+    public static String generateMDFString2(Map map) {
+        char[] out = new char[getMDFLength2(map)];
+        return new String(out, 0, encodeMDFString2(map, out));
+    }
+
+    //Number of hex digits of part 1: '11', one bit per cell and '11', right padded to 4
+    public static int getMDFLength1(Map map) {
+        return (map.getHeight() * map.getWidth() + 4 + 3) / 4;
+    }
+
+    //Most hex digits part 2 can have, when every cell is explored
+    public static int getMDFLength2(Map map) {
+        return (map.getHeight() * map.getWidth() + 3) / 4;
+    }
+
+    /**
+     * Write part 1 into out (at least getMDFLength1 long) and return the number of hex digits written.
+     * The bits are read straight from the map and packed 4 at a time into a digit looked up in HEX_DIGITS, so nothing
+     * is allocated; callers sending the map after every move can keep one buffer.
+     */
+    public static int encodeMDFString1(Map map, char[] out) {
+        int length = 0;
+        int bits = 0b11;  //pad '11' in front
+        int noOfBits = 2;
+        for (int r = 0; r < map.getHeight(); r++) {
+            for (int c = 0; c < map.getWidth(); c++) {
+                bits = bits << 1 | (map.store.get(CellStore.EXPLORED, r, c) ? 1 : 0);
+                if (++noOfBits == 4) {
+                    out[length++] = HEX_DIGITS[bits];
+                    bits = 0;
+                    noOfBits = 0;
+                }
             }
-            biStr += padding.toString();
         }
-        return biStr;
+        //pad '11' at the end, which may carry into one more digit
+        bits = bits << 2 | 0b11;
+        noOfBits += 2;
+        if (noOfBits >= 4) {
+            noOfBits -= 4;
+            out[length++] = HEX_DIGITS[bits >>> noOfBits];
+            bits &= (1 << noOfBits) - 1;
+        }
+        return flush(out, length, bits, noOfBits);
     }
 
-    //Left pad "0" to binary string if it is not a multiple of 4, for conversion to hex string
-    private String leftPadTo4(String biStr) {
-        int check = biStr.length() % 4;
-        if (check != 0) {
-            int to_pad = 4 - check;
-            LOGGER.log(Level.FINEST, "Length of binary string not divisible by 4.");
-            LOGGER.log(Level.FINEST, "Length of string: {0}, Left Padding: {1}", new Object[]{biStr.length(), to_pad});
-            StringBuilder padding = new StringBuilder();
-            for (int i = 0; i < to_pad; i++) {
-                padding.append('0');
+    //Write part 2 into out (at least getMDFLength2 long) and return the number of hex digits written
+    public static int encodeMDFString2(Map map, char[] out) {
+        int length = 0;
+        int bits = 0;
+        int noOfBits = 0;
+        for (int r = 0; r < map.getHeight(); r++) {
+            for (int c = 0; c < map.getWidth(); c++) {
+                if (map.store.get(CellStore.EXPLORED, r, c)) {
+                    bits = bits << 1 | (map.store.get(CellStore.OBSTACLE, r, c) ? 1 : 0);
+                    if (++noOfBits == 4) {
+                        out[length++] = HEX_DIGITS[bits];
+                        bits = 0;
+                        noOfBits = 0;
+                    }
+                }
             }
-            biStr = padding.toString() + biStr;
         }
-        return biStr;
+        return flush(out, length, bits, noOfBits);
     }
 
-    //Convert binary str to hex str
-    private static String biToHex(String biStr) {
-        int dec = Integer.parseInt(biStr, 2);
-        String hexStr = Integer.toHexString(dec);
-        return hexStr;
+    //Right pad the remaining bits with '0' to a last digit, returns the total number of digits
+    private static int flush(char[] out, int length, int bits, int noOfBits) {
+        if (noOfBits != 0) {
+            out[length++] = HEX_DIGITS[bits << (4 - noOfBits)];
+        }
+        return length;
     }
 
-    //Convert hex str to binary str
-    private String hexToBi(String hexStr) {
-        String biStr = "";
-        String tempBiStr = "";
-        int tempDec;
-        for (int i = 0; i < hexStr.length(); i++) {
-            tempDec = Integer.parseInt(Character.toString(hexStr.charAt(i)), 16);
-            tempBiStr = Integer.toBinaryString(tempDec);
-            biStr += leftPadTo4(tempBiStr);
+    //Part 1 of the map, updating only the digits of the cells changed since the last call
+    public String getMDFString1(Map map) {
+        setLiveMap(map);
+        long changeCount = map.getChangeCount();
+        if (liveMDF1 == null) {
+            liveMDF1 = new char[getMDFLength1(map)];
+            encodeMDFString1(map, liveMDF1);
+            liveStr1 = null;
         }
-        return biStr;
-    }
-    //part 1: unexplored cells '0', explored cells '1'
-    public static String generateMDFString1(Map map) {
-        StringBuilder MDFcreator1 = new StringBuilder();
-        StringBuilder temp = new StringBuilder();
-        temp.append("11"); //pad '11' in front
-        for (int r = 0; r < MapConstants.MAP_HEIGHT; r++) {
-            for (int c = 0; c < MapConstants.MAP_WIDTH; c++) {
-                temp.append(map.getCell(r, c).isExplored() ? '1':'0');
-
-                //convert to hex every 8 bits to avoid overflow
-                if(temp.length() == 4) {
-                    MDFcreator1.append(biToHex(temp.toString()));
-                    temp.setLength(0);
+        else {
+            for (long change = mdf1Seen; change < changeCount; change++) {
+                int id = map.getChangedCellId(change);
+                if (id == Map.ALL_CELLS) {
+                    encodeMDFString1(map, liveMDF1);
+                    liveStr1 = null;
+                    break;
+                }
+                if (updateMDF1Digit(map, (id + 2) >>> 2)) {
+                    liveStr1 = null;
                 }
             }
         }
-        temp.append("11"); //pad '11' at the end
-        MDFcreator1.append(biToHex(temp.toString()));
-
-        return MDFcreator1.toString();
+        mdf1Seen = changeCount;
+        if (liveStr1 == null) {
+            liveStr1 = new String(liveMDF1);
+        }
+        return liveStr1;
     }
 
-    //part 2: for explored cells: not obstacle '0', obstacle '0'
-    public static String generateMDFString2(Map map) {
-        StringBuilder MDFcreator2 = new StringBuilder();
-        StringBuilder temp = new StringBuilder();
-        for (int r = 0; r < MapConstants.MAP_HEIGHT; r++) {
-            for (int c = 0; c < MapConstants.MAP_WIDTH; c++) {
-                if (map.getCell(r, c).isExplored()) {
-                    temp.append(map.getCell(r, c).isObstacle() ? '1' : '0');
-                    if (temp.length() == 4) {
-                        MDFcreator2.append(biToHex(temp.toString()));
-                        temp.setLength(0);
-                    }
-                }
+    //Part 2 of the map, encoded again only if the map has changed since the last call
+    public String getMDFString2(Map map) {
+        setLiveMap(map);
+        if (liveStr2 == null || mdf2Seen != map.getChangeCount()) {
+            if (liveMDF2 == null) {
+                liveMDF2 = new char[getMDFLength2(map)];
             }
+            liveStr2 = new String(liveMDF2, 0, encodeMDFString2(map, liveMDF2));
+            mdf2Seen = map.getChangeCount();
         }
+        return liveStr2;
+    }
 
-        //Right pad to 4 for last byte
-        if(temp.length() % 4 != 0) {
-            String tempBiStr = rightPadTo4(temp.toString());
-            MDFcreator2.append(biToHex(tempBiStr));
+    private void setLiveMap(Map map) {
+        if (map != liveMap) {
+            liveMap = map;
+            liveMDF1 = null;
+            liveMDF2 = null;
+            liveStr1 = null;
+            liveStr2 = null;
         }
+    }
 
-        return MDFcreator2.toString();
+    //Encode one digit of part 1 again, returns true if it changed
+    private boolean updateMDF1Digit(Map map, int digit) {
+        int bits = 0;
+        for (int i = digit * 4; i < digit * 4 + 4; i++) {
+            bits = bits << 1 | getMDF1Bit(map, i);
+        }
+        if (liveMDF1[digit] == HEX_DIGITS[bits]) {
+            return false;
+        }
+        liveMDF1[digit] = HEX_DIGITS[bits];
+        return true;
+    }
 
+    //Bit i of part 1: '11', the explored flag of each cell, '11', then '0' padding
+    private static int getMDF1Bit(Map map, int i) {
+        int noOfCells = map.getHeight() * map.getWidth();
+        if (i < 2 || i >= noOfCells + 2) {
+            return i < noOfCells + 4 ? 1 : 0;
+        }
+        int id = i - 2;
+        return map.store.get(CellStore.EXPLORED, id / map.getWidth(), id % map.getWidth()) ? 1 : 0;
     }
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 
-    //load explored arena in map
+    //Bit i of a hex string, most significant bit of each digit first
+    private static int getBit(String hexStr, int i) {
+        char ch = hexStr.charAt(i >>> 2);
+        int digit = Character.digit(ch, 16);
+        if (digit < 0) {
+            throw new NumberFormatException("Invalid hex digit '" + ch + "' in map descriptor");
+        }
+        return digit >>> (3 - (i & 3)) & 1;
+    }
+
+    //load explored arena in map, reading the bits straight from the hex digits
     private void loadMDFString1(String MDFstr1, Map map) {
-        String expStr = hexToBi(MDFstr1);
+        int noOfBits = MDFstr1.length() * 4;
         int index = 2;
-        for (int r = 0; r < MapConstants.MAP_HEIGHT; r++) {
-            for (int c = 0; c < MapConstants.MAP_WIDTH; c++) {
-                if (expStr.charAt(index) == '1') {
-                    map.getCell(r, c).setExplored(true);
+        for (int r = 0; r < map.getHeight(); r++) {
+            for (int c = 0; c < map.getWidth(); c++) {
+                if (index >= noOfBits) {
+                    LOGGER.warning("Map descriptor is smaller than the arena, remaining cells left unexplored");
+                    return;
+                }
+                if (getBit(MDFstr1, index) == 1) {
+                    map.setExplored(r, c, true);
                 }
                 index++;
             }
@@ -154,16 +238,18 @@ public class MapDescriptor {
     }
 
     public void loadMDFString2(String MDFstr2, Map map) {
-        String obsStr = hexToBi(MDFstr2);
+        int noOfBits = MDFstr2.length() * 4;
         int index = 0;
-        for (int r = 0; r < MapConstants.MAP_HEIGHT; r++) {
-            for (int c = 0; c < MapConstants.MAP_WIDTH; c++) {
-                Cell cell = map.getCell(r, c);
-                if (cell.isExplored()) {
-                    if (obsStr.charAt(index) == '1') {
-                        cell.setObstacle(true);
-                        // create virtual wall
-                        map.setVirtualWall(cell, true);
+        for (int r = 0; r < map.getHeight(); r++) {
+            for (int c = 0; c < map.getWidth(); c++) {
+                if (map.store.get(CellStore.EXPLORED, r, c)) {
+                    if (index >= noOfBits) {
+                        LOGGER.warning("Map descriptor is smaller than the arena, remaining cells left without obstacles");
+                        return;
+                    }
+                    //setting the obstacle also creates its virtual wall
+                    if (getBit(MDFstr2, index) == 1) {
+                        map.setObstacle(r, c, true);
                     }
                     index++;
                 }
@@ -3,8 +3,13 @@ package Network;
 import java.io.*;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.*;
 
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
 //Socket client class to connect to RPI
 public class NetMgr {
 
@@ -18,6 +23,9 @@ public class NetMgr {
     private BufferedReader in;
     private int msgCounter = 0;
 
+    //Map update acknowledgements from Android, taken out of the message stream by receive until the robot applies them
+    private final ConcurrentLinkedQueue<Integer> mapAcks = new ConcurrentLinkedQueue<Integer>();
+
     private static NetMgr netMgr = null;
 
     public NetMgr(String ip, int port) {
@@ -90,11 +98,12 @@ public class NetMgr {
         }
     }
 
+    //Receive the next message, queueing any map update acknowledgements from Android on the way
     public String receive() {
         try {
             LOGGER.log(Level.FINE, "Receving Message...");
             String receivedMsg = in.readLine();
-            while (receivedMsg == null || receivedMsg.isEmpty()) {
+            while (receivedMsg == null || receivedMsg.isEmpty() || queueMapAck(receivedMsg)) {
                 receivedMsg = in.readLine();
             }
             LOGGER.info("Received in receive(): " + receivedMsg);
@@ -108,6 +117,24 @@ public class NetMgr {
         }
         return null;
     }
+    //Queue the sequence number if msg is a map update acknowledgement, {"mapack":seq}
+    private boolean queueMapAck(String msg) {
+        if (!msg.contains(NetworkConstants.MAP_ACK_KEY)) {
+            return false;
+        }
+        try {
+            mapAcks.add(new JSONObject(new JSONTokener(msg)).getInt(NetworkConstants.MAP_ACK_KEY));
+        } catch (JSONException e) {
+            LOGGER.warning("Invalid map update acknowledgement: " + msg);
+        }
+        return true;
+    }
+
+    //Next map update acknowledgement received, null if there is none
+    public Integer pollMapAck() {
+        return mapAcks.poll();
+    }
+
     public static String rpiImageRec(){
         String msg = "No result";
         try{
@@ -16,5 +16,9 @@ public class NetworkConstants {
     public static final String START_POINT_KEY = "startpoint";
     public static final String WAY_POINT_KEY = "waypoint";
 
+    // {"mapdelta":"true"} before exploration to receive delta map updates, {"mapack":seq} after applying each one
+    public static final String MAP_DELTA_KEY = "mapdelta";
+    public static final String MAP_ACK_KEY = "mapack";
+
 
 }
@@ -1,8 +1,9 @@
 package Robot;
 import Map.Map;
 import Map.Direction;
+import Map.Cell;
+import Map.MapDelta;
 import Map.MapDescriptor;
-import Map.MapConstants;
 import Map.ObsSurface;
 
 import java.awt.Point;
@@ -101,6 +102,10 @@ public class Robot {
 
     private MapDescriptor MDF = new MapDescriptor();
 
+    //Send only the cells changed since the last map update acknowledged by Android, if Android asked for it
+    private boolean mapDelta = false;
+    private MapDelta mapUpdates = new MapDelta();
+
     private int imageCount = 0;
     private HashMap<String, ObsSurface> surfaceTaken = new HashMap<String, ObsSurface>();
 
@@ -587,7 +592,7 @@ public class Robot {
         exploredMap.setAllMoveThru(false);
         for (int r = row - 1; r <= row + 1; r++) {
             for (int c = col - 1; c <= col + 1; c++) {
-                exploredMap.getCell(r, c).setExplored(true);
+                exploredMap.setExplored(r, c, true);
                 exploredMap.getCell(r, c).setMoveThru(true);
             }
         }
@@ -689,7 +694,7 @@ public class Robot {
             sendAndroid(exploredMap);
 
             //If robot is adjacent to right wall, will use normal calibrate after steps
-            if(isRightHuggingWall() && alignCount> RobotConstants.CALIBRATE_AFTER){
+            if(isRightHuggingWall(exploredMap) && alignCount> RobotConstants.CALIBRATE_AFTER){
                 align_right(exploredMap, realMap);
                 R1count = 0;
                 alignCount = 0;
@@ -779,25 +784,24 @@ public class Robot {
                         cell2Row = s.getRow() + rowInc * 2;
                         cell2Col = s.getCol() + colInc * 2;
                         //If first two cells are explored and not obstacle
-                        if (exploredMap.getCell(cell1Row, cell1Col).isExplored() && !exploredMap.getCell(cell1Row, cell1Col).isObstacle()) {
-                            if (exploredMap.getCell(cell2Row, cell2Col).isExplored() && !exploredMap.getCell(cell2Row, cell2Col).isObstacle()) {
+                        if (exploredMap.isExplored(cell1Row, cell1Col) && !exploredMap.isObstacle(cell1Row, cell1Col)) {
+                            if (exploredMap.isExplored(cell2Row, cell2Col) && !exploredMap.isObstacle(cell2Row, cell2Col)) {
                                 //Set remaining cells in line of sight as non obstacles
                                 for (int i = s.getMinRange(); i <= s.getMaxRange(); i++) {
                                     tempRow = s.getRow() + rowInc * i;
                                     tempCol = s.getCol() + colInc * i;
                                     if (exploredMap.checkValidCell(tempRow, tempCol)) {
-                                        exploredMap.getCell(tempRow, tempCol).setExplored(true);
-                                        exploredMap.getCell(tempRow, tempCol).setObstacle(false);
+                                        exploredMap.setExplored(tempRow, tempCol, true);
+                                        exploredMap.setObstacle(tempRow, tempCol, false);
                                         if(!imageRec) {
                                             removeObsSurfaces(new Point(tempRow, tempCol));
                                         }
-                                        exploredMap.setVirtualWall(exploredMap.getCell(tempRow, tempCol), false);
+                                        exploredMap.setVirtualWall(tempRow, tempCol, false);
                                     } else {
                                         break;
                                     }
 
                                 }
-                                exploredMap.reinitializeVirtualWall();
                             }
                         }
                     }
@@ -811,23 +815,23 @@ public class Robot {
 
                             //Update specified cell when identified as obstacle
                             //Will not update as obstacle if area has been moved through
-                            if (j == obsBlock && !exploredMap.getCell(tempRow, tempCol).isMoveThru()) {
+                            if (j == obsBlock && !exploredMap.isMoveThru(tempRow, tempCol)) {
                                 if (!sim) {
                                     int tempRow1, tempCol1;
-                                    exploredMap.getCell(tempRow,tempCol).setExplored(true);
-                                    exploredMap.getCell(tempRow, tempCol).setObstacle(true);
+                                    exploredMap.setExplored(tempRow, tempCol, true);
+                                    exploredMap.setObstacle(tempRow, tempCol, true);
                                     if(!imageRec) {
 //                                        addObstacleSurface(new Point(tempRow, tempCol), s.getSensorDir());
                                     }
                                     for (int i = 1; i < obsBlock; i++) {
                                         tempRow1 = s.getRow() + rowInc * i;
                                         tempCol1 = s.getCol() + colInc * i;
-                                        exploredMap.getCell(tempRow1, tempCol1).setExplored(true);
-                                        exploredMap.getCell(tempRow1, tempCol1).setObstacle(false);
+                                        exploredMap.setExplored(tempRow1, tempCol1, true);
+                                        exploredMap.setObstacle(tempRow1, tempCol1, false);
                                         if(!imageRec) {
                                             removeObsSurfaces(new Point(tempRow, tempCol));
                                         }
-                                        exploredMap.setVirtualWall(exploredMap.getCell(tempRow, tempCol), false);
+                                        exploredMap.setVirtualWall(tempRow, tempCol, false);
                                     }
                                 } else {
                                     int tempRow2, tempCol2;
@@ -836,14 +840,14 @@ public class Robot {
 
                                         tempRow2 = s.getRow() + rowInc * i;
                                         tempCol2 = s.getCol() + colInc * i;
-                                        if (exploredMap.getCell(tempRow2, tempCol2).isObstacle()) {
+                                        if (exploredMap.isObstacle(tempRow2, tempCol2)) {
                                             obstacleInLine = true;
                                             break;
                                         }
                                     }
                                     if (!obstacleInLine) {
-                                        exploredMap.getCell(tempRow, tempCol).setObstacle(true);
-                                        exploredMap.getCell(tempRow, tempCol).setExplored(true);
+                                        exploredMap.setObstacle(tempRow, tempCol, true);
+                                        exploredMap.setExplored(tempRow, tempCol, true);
 //                                        System.out.println("temp row: " + tempRow);
 //                                        System.out.println("temp col: " + tempCol);
                                         if(!imageRec) {
@@ -852,16 +856,15 @@ public class Robot {
                                         for (int i = 1; i < obsBlock; i++) {
                                             tempRow2 = s.getRow() + rowInc * i;
                                             tempCol2 = s.getCol() + colInc * i;
-                                            exploredMap.getCell(tempRow2, tempCol2).setExplored(true);
-                                            exploredMap.getCell(tempRow2, tempCol2).setObstacle(false);
+                                            exploredMap.setExplored(tempRow2, tempCol2, true);
+                                            exploredMap.setObstacle(tempRow2, tempCol2, false);
                                             if(!imageRec) {
                                                 removeObsSurfaces(new Point(tempRow, tempCol));
                                             }
-                                            exploredMap.setVirtualWall(exploredMap.getCell(tempRow2, tempCol2), false);
+                                            exploredMap.setVirtualWall(tempRow2, tempCol2, false);
                                         }
                                     }
                                 }
-                                exploredMap.reinitializeVirtualWall();
                             }
                         }
                     }
@@ -877,17 +880,16 @@ public class Robot {
 
                     // Check whether the block is a valid block
                     if (exploredMap.checkValidCell(tempRow, tempCol)) {
-                        exploredMap.getCell(tempRow, tempCol).setExplored(true);
+                        exploredMap.setExplored(tempRow, tempCol, true);
 
                         //Update specified cell when identified as obstacle
                         //Will not update as obstacle if area has been moved through
-                        if (j == obsBlock && !exploredMap.getCell(tempRow, tempCol).isMoveThru()) {
-                            exploredMap.getCell(tempRow, tempCol).setObstacle(true);
+                        if (j == obsBlock && !exploredMap.isMoveThru(tempRow, tempCol)) {
+                            exploredMap.setObstacle(tempRow, tempCol, true);
                             if(!imageRec) {
 //                                addObstacleSurface(new Point(tempRow, tempCol), s.getSensorDir());
                             }
-                            exploredMap.setVirtualWall(exploredMap.getCell(tempRow, tempCol), true);
-                            exploredMap.reinitializeVirtualWall();
+                            exploredMap.setVirtualWall(tempRow, tempCol, true);
                             if(s.getId() == "R1" && obsBlock == 1){
                                 System.out.println("Robot Position: " + this.getPos().toString());
                                 System.out.println("R1 Counters: " + R1count);
@@ -897,13 +899,12 @@ public class Robot {
                         }
 
                         //Previous detected obstacle is wrongly detected; reset the cell and virtual walls
-                        else if (j != obsBlock && exploredMap.getCell(tempRow, tempCol).isObstacle()) {      // (3)
-                            exploredMap.getCell(tempRow, tempCol).setObstacle(false);
+                        else if (j != obsBlock && exploredMap.isObstacle(tempRow, tempCol)) {      // (3)
+                            exploredMap.setObstacle(tempRow, tempCol, false);
                             if(!imageRec) {
                                 removeObsSurfaces(new Point(tempRow, tempCol));
                             }
-                            exploredMap.setVirtualWall(exploredMap.getCell(tempRow, tempCol), false);
-                            exploredMap.reinitializeVirtualWall();
+                            exploredMap.setVirtualWall(tempRow, tempCol, false);
                             if(s.getId() == "R1"){
                                 R1count=0;
                             }
@@ -934,16 +935,57 @@ public class Robot {
 
     //Translate map into JSON array for transmission
     private JSONArray getMapArray(Map exploredMap) {
-        String obstacleString = MDF.generateMDFString2(exploredMap);
+        for (Integer seq = NetMgr.getInstance().pollMapAck(); seq != null; seq = NetMgr.getInstance().pollMapAck()) {
+            mapUpdates.acknowledge(seq);
+        }
+        if (mapDelta && !mapUpdates.needsKeyframe(exploredMap)) {
+            return getMapDeltaArray(exploredMap);
+        }
+        String obstacleString = MDF.getMDFString2(exploredMap);
         JSONArray mapArray = new JSONArray();
         JSONObject mapJson = new JSONObject();
-        mapJson.put("explored", MDF.generateMDFString1(exploredMap));
+        mapJson.put("explored", MDF.getMDFString1(exploredMap));
         mapJson.put("obstacle", obstacleString);
         mapJson.put("length", obstacleString.length() * 4);
+        if (mapDelta) {
+            mapJson.put("seq", mapUpdates.getNextSeq());
+            mapUpdates.send(exploredMap, true);
+        }
         mapArray.put(mapJson);
         return mapArray;
     }
 
+    //Translate the cells changed since the map update last acknowledged by Android into JSON array
+    //Each cell is [x, y, state], state 0 unexplored, 1 explored and 2 obstacle
+    private JSONArray getMapDeltaArray(Map exploredMap) {
+        JSONArray mapArray = new JSONArray();
+        JSONObject mapJson = new JSONObject();
+        mapJson.put("seq", mapUpdates.getNextSeq());
+        mapJson.put("base", mapUpdates.getBaseSeq());
+        JSONArray cells = new JSONArray();
+        for (int id : mapUpdates.send(exploredMap, false)) {
+            int row = id / exploredMap.getWidth();
+            int col = id % exploredMap.getWidth();
+            int state = !exploredMap.isExplored(row, col) ? 0 : exploredMap.isObstacle(row, col) ? 2 : 1;
+            cells.put(new JSONArray().put(col).put(row).put(state));
+        }
+        mapJson.put("cells", cells);
+        mapArray.put(mapJson);
+        return mapArray;
+    }
+
+    //Switch between full and delta map updates, as negotiated with Android
+    public void setMapDelta(boolean mapDelta) {
+        this.mapDelta = mapDelta;
+        mapUpdates.reset();
+    }
+
+    //Parse map delta request sent from Android, {"mapdelta":"true"}
+    public boolean parseMapDeltaJson(String jsonMsg) {
+        JSONObject mapDeltaJson = new JSONObject(new JSONTokener(jsonMsg));
+        return mapDeltaJson.optBoolean(NetworkConstants.MAP_DELTA_KEY, false);
+    }
+
     //Translate status of robot into JSONArray
     private JSONArray getStatusArray() {
         JSONArray statusArray = new JSONArray();
@@ -1023,7 +1065,7 @@ public class Robot {
         }
 
         if(exploredMap.checkValidCell(F1.y, F1.x) && exploredMap.checkValidCell(F3.y,F3.x) && exploredMap.checkValidCell(F2.y,F2.x)){
-            return (exploredMap.getCell(F1.y, F1.x).isObstacle() || exploredMap.getCell(F3.y, F3.x).isObstacle() ||exploredMap.getCell(F2.y, F2.x).isObstacle());
+            return (exploredMap.isObstacle(F1.y, F1.x) || exploredMap.isObstacle(F3.y, F3.x) ||exploredMap.isObstacle(F2.y, F2.x));
         }
         return false;
     }
@@ -1073,11 +1115,11 @@ public class Robot {
 
         int F2row = this.getSensor("F2").getRow();
         int F2col = this.getSensor("F2").getCol();
-        if(F2row == 0 || F2row == MapConstants.MAP_HEIGHT-1 || F2col == 0 || F2col == MapConstants.MAP_WIDTH-1) {
+        if(F2row == 0 || F2row == exploredMap.getHeight()-1 || F2col == 0 || F2col == exploredMap.getWidth()-1) {
             return true;
         }
         else if(exploredMap.checkValidCell(F1.y, F1.x) && exploredMap.checkValidCell(F3.y,F3.x)){
-            return exploredMap.getCell(F1.y, F1.x).isObstacle() && exploredMap.getCell(F3.y, F3.x).isObstacle();
+            return exploredMap.isObstacle(F1.y, F1.x) && exploredMap.isObstacle(F3.y, F3.x);
         }
         return false;
     }
@@ -1124,11 +1166,11 @@ public class Robot {
                 break;
             }
         }
-        if(isRightHuggingWall()){
+        if(isRightHuggingWall(exploredMap)){
             return true;
         }
         else if(exploredMap.checkValidCell(F1.y, F1.x) && exploredMap.checkValidCell(F3.y,F3.x)){
-            return exploredMap.getCell(F1.y, F1.x).isObstacle() && exploredMap.getCell(F3.y, F3.x).isObstacle();
+            return exploredMap.isObstacle(F1.y, F1.x) && exploredMap.isObstacle(F3.y, F3.x);
         }
         return false;
     }
@@ -1221,20 +1263,20 @@ public class Robot {
     }
 
     //Robot is right hugging the wall if the right sensor position is equal to
-    public boolean isRightHuggingWall() {
+    public boolean isRightHuggingWall(Map exploredMap) {
 
         Point R1_pos = sensorMap.get("R1").getPos();
         Point R2_pos = sensorMap.get("R2").getPos();
         if (R1_pos.x == 0 && R2_pos.x ==2 ){
             return true;
         }
-        if(R1_pos.x == MapConstants.MAP_WIDTH - 1 && R2_pos.x == MapConstants.MAP_WIDTH - 3){
+        if(R1_pos.x == exploredMap.getWidth() - 1 && R2_pos.x == exploredMap.getWidth() - 3){
             return true;
         }
         if(R1_pos.y == 0 && R2_pos.y == 2){
             return true;
         }
-        if(R1_pos.y == MapConstants.MAP_HEIGHT - 1 && R2_pos.y == MapConstants.MAP_HEIGHT- 3)
+        if(R1_pos.y == exploredMap.getHeight() - 1 && R2_pos.y == exploredMap.getHeight() - 3)
         {
             return true;
         }
@@ -1242,19 +1284,19 @@ public class Robot {
     }
 
     //Robot is right hugging the wall if the right sensor position is equal to
-    public boolean isFacingWall() {
+    public boolean isFacingWall(Map exploredMap) {
         Point F1_pos = sensorMap.get("F1").getPos();
         Point F2_pos = sensorMap.get("F2").getPos();
         if (F1_pos.y == 0 && F2_pos.y ==0 ){
             return true;
         }
-        if(F1_pos.x == MapConstants.MAP_WIDTH - 1 && F2_pos.x == MapConstants.MAP_WIDTH - 1){
+        if(F1_pos.x == exploredMap.getWidth() - 1 && F2_pos.x == exploredMap.getWidth() - 1){
             return true;
         }
         if(F1_pos.x == 0 && F2_pos.x == 0){
             return true;
         }
-        return (F1_pos.y == MapConstants.MAP_HEIGHT-1 && F2_pos.y == MapConstants.MAP_HEIGHT-1);
+        return (F1_pos.y == exploredMap.getHeight()-1 && F2_pos.y == exploredMap.getHeight()-1);
     }
 
     public int getAlignCount() {
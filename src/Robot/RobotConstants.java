@@ -8,6 +8,7 @@ public class RobotConstants {
     public static final int MOVE_COST = 1;
     public static final int TURN_COST = 3;
     public static final double INFINITE_COST = 10000000;
+    public static final long PLAN_BUDGET_US = 20000;  //Time the anytime planner may block before returning a path, in microseconds
     public static final int CHECKSTEPS = 18;
     public static final int CALIBRATE_AFTER = 3; //Calibrate After number of moves (for align_right)
 
@@ -16,6 +17,9 @@ public class RobotConstants {
 
     //Time limit for image exploration before robot returns to start point
     public static final int IMG_TIME_LIMIT = 340;
+    //Time kept for visiting the obstacle surfaces after image exploration, on top of any left before IMG_TIME_LIMIT
+    public static final int IMG_TOUR_TIME_LIMIT = 60;
+    public static final int IMG_CAPTURE_MS = 750;   //Time to take an image of a surface, in milliseconds
 
     // To be adjusted
     public static final int MOVE_STEPS = 1;
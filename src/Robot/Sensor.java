@@ -83,24 +83,24 @@ public class Sensor {
                 case UP:
                     //Return value if sensor detects border or obstacle
                     if(this.getId()== "L1"){
-                        if(pos.y + cur > MapConstants.MAP_HEIGHT){
+                        if(pos.y + cur > map.getHeight()){
                             break;
                         }
                     }
-                    if (pos.y + cur == MapConstants.MAP_HEIGHT)
+                    if (pos.y + cur == map.getHeight())
                         return cur;
-                    else if (map.getCell(pos.y + cur, pos.x).isObstacle())
+                    else if (map.isObstacle(pos.y + cur, pos.x))
                         return cur;
                     break;
                 case RIGHT:
                     if(this.getId()== "L1"){
-                        if(pos.x + cur > MapConstants.MAP_WIDTH){
+                        if(pos.x + cur > map.getWidth()){
                             break;
                         }
                     }
-                    if (pos.x + cur == MapConstants.MAP_WIDTH)
+                    if (pos.x + cur == map.getWidth())
                         return cur;
-                    else if (map.getCell(pos.y, pos.x + cur).isObstacle())
+                    else if (map.isObstacle(pos.y, pos.x + cur))
                         return cur;
                     break;
                 case DOWN:
@@ -111,7 +111,7 @@ public class Sensor {
                     }
                     if (pos.y - cur == -1)
                         return cur;
-                    else if (map.getCell(pos.y - cur, pos.x).isObstacle())
+                    else if (map.isObstacle(pos.y - cur, pos.x))
                         return cur;
                     break;
                 case LEFT:
@@ -122,7 +122,7 @@ public class Sensor {
                     }
                     if (pos.x - cur == -1)
                         return cur;
-                    else if (map.getCell(pos.y, pos.x - cur).isObstacle())
+                    else if (map.isObstacle(pos.y, pos.x - cur))
                         return cur;
                     break;
             }
@@ -0,0 +1,97 @@
+package Algorithm;
+
+import java.awt.Point;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import Map.*;
+import Robot.RobotConstants;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnytimePlannerTest {
+
+    private static final long LARGE_BUDGET_US = 10000000;
+    private static final long WAIT_MS = 5000;
+
+    private static final Point START = new Point(1, 1);
+    private static final Point GOAL = new Point(13, 18);
+
+    @Test
+    void reachesFastestPathWithinBudget() {
+        for (String filename : TestMaps.EXPLORED) {
+            Map map = TestMaps.load(filename);
+            AnytimePlanner planner = new AnytimePlanner(map);
+            for (FastestPathTest.Query query : FastestPathTest.getQueries(map)) {
+                ArrayList<Cell> path = planner.plan(query.start, null, query.goal, query.dir, LARGE_BUDGET_US);
+                String message = filename + " " + query;
+                double expected = query.getReferenceCost(map);
+                if (expected >= RobotConstants.INFINITE_COST) {
+                    assertNull(path, message);
+                    continue;
+                }
+                assertEquals(1.0, planner.getEpsilon(), message);
+                assertEquals(expected, ReferenceSearch.pathCost(map, query.start, query.dir, query.goal, path), message);
+            }
+        }
+    }
+
+    @Test
+    void passesThroughWayPoint() {
+        Point[] wayPoints = {new Point(7, 10), new Point(12, 3), new Point(2, 17)};
+        for (String filename : TestMaps.EXPLORED) {
+            Map map = TestMaps.load(filename);
+            AnytimePlanner planner = new AnytimePlanner(map);
+            for (Point wayPoint : wayPoints) {
+                if (!map.checkValidMove(wayPoint.y, wayPoint.x)) {
+                    continue;
+                }
+                ArrayList<Cell> path = planner.plan(START, wayPoint, GOAL, Direction.UP, LARGE_BUDGET_US);
+                String message = filename + " through (" + wayPoint.x + ", " + wayPoint.y + ")";
+                double expected = ReferenceSearch.cost(map, START, Direction.UP, wayPoint, GOAL);
+                if (expected >= RobotConstants.INFINITE_COST) {
+                    assertNull(path, message);
+                    continue;
+                }
+                assertTrue(path.contains(map.getCell(wayPoint)), message);
+                assertEquals(expected, ReferenceSearch.pathCost(map, START, Direction.UP, GOAL, path), message);
+            }
+        }
+    }
+
+    //The background searches keep to the map as it was when plan was called
+    @Test
+    void improvesInBackgroundWhileMapChanges() throws InterruptedException {
+        for (String filename : TestMaps.EXPLORED) {
+            Map map = TestMaps.load(filename);
+            Map planned = TestMaps.load(filename);
+            AnytimePlanner planner = new AnytimePlanner(map);
+            ArrayList<Cell> path = planner.plan(START, null, GOAL, Direction.UP, 0);
+            assertNotNull(path, filename);
+            for (int i = 2; i < path.size() - 1; i += 3) {
+                map.getCell(path.get(i).getPos()).setObstacle(true);
+            }
+
+            long waitUntil = System.currentTimeMillis() + WAIT_MS;
+            while (planner.getEpsilon() > 1 && System.currentTimeMillis() < waitUntil) {
+                Thread.sleep(10);
+            }
+            path = planner.finish();
+            assertEquals(1.0, planner.getEpsilon(), filename);
+            assertEquals(ReferenceSearch.cost(planned, START, Direction.UP, GOAL),
+                    ReferenceSearch.pathCost(planned, START, Direction.UP, GOAL, path), filename);
+        }
+    }
+
+    @Test
+    void newPlanUsesChangedMap() {
+        Map map = TestMaps.load(TestMaps.EXPLORED[0]);
+        AnytimePlanner planner = new AnytimePlanner(map);
+        ArrayList<Cell> path = planner.plan(START, null, GOAL, Direction.UP, LARGE_BUDGET_US);
+        map.getCell(path.get(path.size() / 2).getPos()).setObstacle(true);
+        path = planner.plan(START, null, GOAL, Direction.UP, LARGE_BUDGET_US);
+        assertEquals(ReferenceSearch.cost(map, START, Direction.UP, GOAL),
+                ReferenceSearch.pathCost(map, START, Direction.UP, GOAL, path));
+    }
+}
@@ -0,0 +1,90 @@
+package Algorithm;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import Map.*;
+import Robot.RobotConstants;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The search tree kept between searches to the same goal must give the same path cost as a new search after
+ * obstacles are found or removed and the robot moves on.
+ */
+class DStarLiteTest {
+
+    private static final Point GOAL = new Point(13, 18);
+
+    @Test
+    void replansAfterObstaclesFound() {
+        for (String filename : TestMaps.EXPLORED) {
+            Map map = TestMaps.load(filename);
+            DStarLite search = new DStarLite(map);
+            Point start = new Point(1, 1);
+            Direction dir = Direction.UP;
+            ArrayList<Cell> path = search.findPath(start, GOAL, dir);
+            assertCost(map, start, dir, GOAL, path, filename);
+            //Block the path ahead a few cells at a time, moving the robot a little along the last path before each search
+            while (path != null && path.size() > 6) {
+                Point next = path.get(2).getPos();
+                dir = map.getCellDir(path.get(1).getPos(), next);
+                start = next;
+                map.getCell(path.get(5).getPos()).setObstacle(true);
+                path = search.findPath(start, GOAL, dir);
+                assertCost(map, start, dir, GOAL, path, filename);
+            }
+        }
+    }
+
+    @Test
+    void replansAfterObstaclesRemoved() {
+        for (String filename : TestMaps.EXPLORED) {
+            Map map = TestMaps.load(filename);
+            DStarLite search = new DStarLite(map);
+            Point start = new Point(1, 1);
+            search.findPath(start, GOAL, Direction.RIGHT);
+            ArrayList<Point> obstacles = new ArrayList<Point>();
+            for (int row = 0; row < map.getHeight(); row++) {
+                for (int col = 0; col < map.getWidth(); col++) {
+                    if (map.getCell(row, col).isObstacle()) {
+                        obstacles.add(new Point(col, row));
+                    }
+                }
+            }
+            Random random = new Random(2);
+            while (!obstacles.isEmpty()) {
+                map.getCell(obstacles.remove(random.nextInt(obstacles.size()))).setObstacle(false);
+                assertCost(map, start, Direction.RIGHT, GOAL, search.findPath(start, GOAL, Direction.RIGHT), filename);
+            }
+        }
+    }
+
+    @Test
+    void newSearchAfterGoalChangeOrMapReset() {
+        Map map = TestMaps.load(TestMaps.EXPLORED[0]);
+        DStarLite search = new DStarLite(map);
+        Point start = new Point(1, 1);
+        search.findPath(start, GOAL, Direction.UP);
+        Point otherGoal = new Point(7, 10);
+        assertCost(map, start, Direction.UP, otherGoal, search.findPath(start, otherGoal, Direction.UP), "new goal");
+        new MapDescriptor().loadRealMap(map, TestMaps.EXPLORED[1]);
+        assertCost(map, start, Direction.UP, otherGoal, search.findPath(start, otherGoal, Direction.UP), "reset map");
+    }
+
+    //The path is null if the reference finds no path, otherwise it has the minimum cost
+    private static void assertCost(Map map, Point start, Direction dir, Point goal, ArrayList<Cell> path, String name) {
+        double expected = ReferenceSearch.cost(map, start, dir, goal);
+        String message = String.format("%s from (%d, %d) %s", name, start.x, start.y, dir);
+        if (expected >= RobotConstants.INFINITE_COST) {
+            assertNull(path, message);
+        }
+        else {
+            assertNotNull(path, message);
+            assertEquals(expected, ReferenceSearch.pathCost(map, start, dir, goal, path), message);
+        }
+    }
+}
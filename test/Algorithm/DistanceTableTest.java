@@ -0,0 +1,104 @@
+package Algorithm;
+
+import java.awt.Point;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import Map.*;
+import Robot.Robot;
+import Robot.RobotConstants;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistanceTableTest {
+
+    @Test
+    void costsMatchReference() {
+        for (String filename : new String[]{TestMaps.EXPLORED[0], TestMaps.EXPLORED[6]}) {
+            Map map = TestMaps.load(filename);
+            DistanceTable table = new DistanceTable(map);
+            ArrayList<Point> cells = ReferenceSearch.movableCells(map);
+            for (Point start : cells) {
+                for (Direction dir : Direction.values()) {
+                    double[] expected = ReferenceSearch.costsFrom(map, start, dir);
+                    for (Point goal : cells) {
+                        assertEquals(expected[goal.y * map.getWidth() + goal.x], table.getCost(start, dir, goal),
+                                String.format("%s (%d, %d) %s -> (%d, %d)", filename, start.x, start.y, dir, goal.x, goal.y));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void pathsHaveTableCost() {
+        for (String filename : TestMaps.EXPLORED) {
+            Map map = TestMaps.load(filename);
+            DistanceTable table = new DistanceTable(map);
+            for (FastestPathTest.Query query : FastestPathTest.getQueries(map)) {
+                double cost = table.getCost(query.start, query.dir, query.goal);
+                ArrayList<Cell> path = table.getPath(query.start, query.dir, query.goal);
+                if (cost >= RobotConstants.INFINITE_COST) {
+                    assertNull(path);
+                    assertNull(table.getEndDirection(query.start, query.dir, query.goal));
+                    continue;
+                }
+                assertEquals(cost, ReferenceSearch.pathCost(map, query.start, query.dir, query.goal, path), query.toString());
+                Direction endDir = path.isEmpty() ? query.dir
+                        : map.getCellDir(path.size() > 1 ? path.get(path.size() - 2).getPos() : query.start, query.goal);
+                assertEquals(endDir, table.getEndDirection(query.start, query.dir, query.goal), query.toString());
+            }
+        }
+    }
+
+    @Test
+    void cellsOutsideTableHaveNoPath() {
+        Map map = TestMaps.load(TestMaps.EXPLORED[0]);
+        DistanceTable table = new DistanceTable(map);
+        Point wall = new Point(0, 0);
+        assertFalse(table.covers(wall, new Point(1, 1)));
+        assertEquals(RobotConstants.INFINITE_COST, table.getCost(wall, Direction.UP, new Point(1, 1)));
+        assertEquals(RobotConstants.INFINITE_COST, table.getCost(new Point(1, 1), Direction.UP, new Point(-1, 30)));
+        assertNull(table.getPath(new Point(1, 1), Direction.UP, wall));
+    }
+
+    @Test
+    void staleAfterMapChange() {
+        Map map = TestMaps.load(TestMaps.EXPLORED[0]);
+        DistanceTable table = new DistanceTable(map);
+        assertFalse(table.isStale());
+        map.getCell(10, 7).setObstacle(true);
+        assertTrue(table.isStale());
+    }
+
+    //Over MAX_CELLS movable cells the table is not built and the planner searches instead
+    @Test
+    void largeArenaFallsBackToSearch() {
+        Map map = new Map(40, 40);
+        map.setAllExplored(true);
+        assertTrue(ReferenceSearch.movableCells(map).size() > DistanceTable.MAX_CELLS);
+        assertFalse(DistanceTable.fits(map));
+        assertThrows(IllegalArgumentException.class, () -> new DistanceTable(map));
+
+        FastestPath fp = new FastestPath(map, new Robot(true, false, 1, 1, Direction.UP), true);
+        fp.setUseDistanceTable(true);
+        assertNull(fp.getDistanceTable());
+        PathCost pathCost = fp.getPathCost();
+        Point start = new Point(1, 1);
+        Point goal = new Point(38, 30);
+        assertEquals(ReferenceSearch.cost(map, start, Direction.LEFT, goal), pathCost.getCost(start, Direction.LEFT, goal));
+        assertNotNull(pathCost.getEndDirection(start, Direction.LEFT, goal));
+
+        //the same query after the map changed is searched again
+        for (int r = 0; r < 35; r++) {
+            map.getCell(r, 20).setObstacle(true);
+        }
+        assertEquals(ReferenceSearch.cost(map, start, Direction.LEFT, goal), pathCost.getCost(start, Direction.LEFT, goal));
+        assertEquals(Direction.UP, pathCost.getEndDirection(start, Direction.UP, new Point(1, 10)));
+        assertEquals(ReferenceSearch.cost(map, start, Direction.LEFT, goal), pathCost.getCost(start, Direction.LEFT, goal));
+        ArrayList<Cell> path = fp.runAStar(start, goal, Direction.LEFT, SearchMode.HEADING);
+        assertEquals(ReferenceSearch.cost(map, start, Direction.LEFT, goal),
+                ReferenceSearch.pathCost(map, start, Direction.LEFT, goal, path));
+    }
+}
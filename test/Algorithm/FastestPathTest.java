@@ -0,0 +1,146 @@
+package Algorithm;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import Map.*;
+import Robot.Robot;
+import Robot.RobotConstants;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every search mode against the reference Dijkstra on the sample arenas: the modes with the heading search costs
+ * must find a path of the minimum cost, the others a valid path.
+ */
+class FastestPathTest {
+
+    private static final Point START = new Point(1, 1);
+    private static final Point GOAL = new Point(13, 18);
+    private static final int NO_OF_QUERIES = 30;
+
+    @Test
+    void headingModesFindMinimumCostPath() {
+        for (String filename : TestMaps.EXPLORED) {
+            Map map = TestMaps.load(filename);
+            FastestPath fp = new FastestPath(map, new Robot(true, false, 1, 1, Direction.UP), true);
+            for (Query query : getQueries(map)) {
+                double expected = query.getReferenceCost(map);
+                for (SearchMode mode : new SearchMode[]{SearchMode.HEADING, SearchMode.INCREMENTAL, SearchMode.JPS, SearchMode.BIDIRECTIONAL}) {
+                    ArrayList<Cell> path = fp.runAStar(query.start, query.goal, query.dir, mode);
+                    String message = mode + " on " + filename + " " + query;
+                    if (expected >= RobotConstants.INFINITE_COST) {
+                        assertNull(path, message);
+                    }
+                    else {
+                        assertNotNull(path, message);
+                        assertEquals(expected, ReferenceSearch.pathCost(map, query.start, query.dir, query.goal, path), message);
+                    }
+                }
+            }
+        }
+    }
+
+    //The cell search and the anytime planner within its budget do not promise the minimum, only a valid path
+    @Test
+    void otherModesFindValidPath() {
+        for (String filename : TestMaps.EXPLORED) {
+            Map map = TestMaps.load(filename);
+            FastestPath fp = new FastestPath(map, new Robot(true, false, 1, 1, Direction.UP), true);
+            for (Query query : getQueries(map)) {
+                double expected = query.getReferenceCost(map);
+                if (expected >= RobotConstants.INFINITE_COST) {
+                    continue;
+                }
+                ArrayList<Cell> cellPath = fp.runAStar(query.start, query.goal, query.dir, SearchMode.CELL);
+                assertTrue(ReferenceSearch.pathCost(map, query.start, query.dir, query.goal, cellPath) >= expected);
+                ArrayList<Cell> anytimePath = fp.runAStar(query.start, query.goal, query.dir, SearchMode.ANYTIME);
+                double anytimeCost = ReferenceSearch.pathCost(map, query.start, query.dir, query.goal, anytimePath);
+                assertTrue(anytimeCost >= expected && anytimeCost <= 3 * expected, "anytime cost " + anytimeCost + ", minimum " + expected);
+            }
+        }
+    }
+
+    //The planners read the arena size from the map, so they must find the same costs on arenas of other sizes
+    @Test
+    void otherArenaSizes() {
+        int[][] sizes = {{7, 9}, {33, 21}, {60, 45}};
+        Random random = new Random(7);
+        for (int[] size : sizes) {
+            Map map = new Map(size[0], size[1]);
+            map.setAllExplored(true);
+            for (int i = 0; i < size[0] * size[1] / 40; i++) {
+                map.getCell(random.nextInt(size[0]), random.nextInt(size[1])).setObstacle(true);
+            }
+            FastestPath fp = new FastestPath(map, new Robot(true, false, 1, 1, Direction.UP), true);
+            for (Query query : getQueries(map)) {
+                double expected = query.getReferenceCost(map);
+                for (SearchMode mode : new SearchMode[]{SearchMode.HEADING, SearchMode.INCREMENTAL, SearchMode.JPS, SearchMode.BIDIRECTIONAL}) {
+                    ArrayList<Cell> path = fp.runAStar(query.start, query.goal, query.dir, mode);
+                    String message = mode + " on " + size[0] + " x " + size[1] + " " + query;
+                    if (expected >= RobotConstants.INFINITE_COST) {
+                        assertNull(path, message);
+                    }
+                    else {
+                        assertEquals(expected, ReferenceSearch.pathCost(map, query.start, query.dir, query.goal, path), message);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void noPathToEnclosedGoal() {
+        Map map = TestMaps.load(TestMaps.EXPLORED[0]);
+        //wall off the goal zone
+        for (int col = 9; col < map.getWidth(); col++) {
+            map.getCell(14, col).setObstacle(true);
+        }
+        for (int row = 14; row < map.getHeight(); row++) {
+            map.getCell(row, 9).setObstacle(true);
+        }
+        FastestPath fp = new FastestPath(map, new Robot(true, false, 1, 1, Direction.UP), true);
+        for (SearchMode mode : SearchMode.values()) {
+            assertNull(fp.runAStar(START, GOAL, Direction.UP, mode), mode.toString());
+        }
+    }
+
+    //Start to the goal zone in every direction, then pairs of random movable cells
+    static ArrayList<Query> getQueries(Map map) {
+        ArrayList<Query> queries = new ArrayList<Query>();
+        for (Direction dir : Direction.values()) {
+            queries.add(new Query(START, dir, map.getGoalZone()));
+        }
+        ArrayList<Point> cells = ReferenceSearch.movableCells(map);
+        Random random = new Random(1);
+        for (int i = 0; i < NO_OF_QUERIES; i++) {
+            queries.add(new Query(cells.get(random.nextInt(cells.size())), Direction.values()[random.nextInt(4)],
+                    cells.get(random.nextInt(cells.size()))));
+        }
+        return queries;
+    }
+
+    static class Query {
+        final Point start;
+        final Direction dir;
+        final Point goal;
+
+        Query(Point start, Direction dir, Point goal) {
+            this.start = start;
+            this.dir = dir;
+            this.goal = goal;
+        }
+
+        double getReferenceCost(Map map) {
+            return ReferenceSearch.cost(map, start, dir, goal);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("(%d, %d) %s -> (%d, %d)", start.x, start.y, dir, goal.x, goal.y);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package Algorithm;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import Map.*;
+import Robot.RobotConstants;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plain Dijkstra over (cell, direction) states with the heading search costs, as the reference the planners are
+ * checked against. Slow but with nothing shared with the code under test.
+ */
+class ReferenceSearch {
+
+    private static final int NO_OF_DIR = Direction.values().length;
+
+    //Minimum move and turn cost from start facing dir to every cell, INFINITE_COST where there is no path
+    static double[] costsFrom(Map map, Point start, Direction dir) {
+        double[] stateCost = stateCostsFrom(map, start, dir);
+        double[] cellCost = new double[stateCost.length / NO_OF_DIR];
+        Arrays.fill(cellCost, RobotConstants.INFINITE_COST);
+        for (int state = 0; state < stateCost.length; state++) {
+            cellCost[state / NO_OF_DIR] = Math.min(cellCost[state / NO_OF_DIR], stateCost[state]);
+        }
+        return cellCost;
+    }
+
+    static double cost(Map map, Point start, Direction dir, Point goal) {
+        return costsFrom(map, start, dir)[goal.y * map.getWidth() + goal.x];
+    }
+
+    //Minimum cost from start facing dir to goal passing through wayPoint, over every direction faced at the waypoint
+    static double cost(Map map, Point start, Direction dir, Point wayPoint, Point goal) {
+        double[] stateCost = stateCostsFrom(map, start, dir);
+        double best = RobotConstants.INFINITE_COST;
+        for (Direction d : Direction.values()) {
+            double toWayPoint = stateCost[(wayPoint.y * map.getWidth() + wayPoint.x) * NO_OF_DIR + d.ordinal()];
+            best = Math.min(best, toWayPoint + cost(map, wayPoint, d, goal));
+        }
+        return best;
+    }
+
+    //Minimum cost from start facing dir to every (cell, direction) state, indexed by cell id * 4 + direction
+    private static double[] stateCostsFrom(Map map, Point start, Direction dir) {
+        int width = map.getWidth();
+        double[] stateCost = new double[map.getHeight() * width * NO_OF_DIR];
+        Arrays.fill(stateCost, RobotConstants.INFINITE_COST);
+        PriorityQueue<double[]> queue = new PriorityQueue<double[]>((a, b) -> Double.compare(a[0], b[0]));
+        int startState = (start.y * width + start.x) * NO_OF_DIR + dir.ordinal();
+        stateCost[startState] = 0;
+        queue.add(new double[]{0, startState});
+        while (!queue.isEmpty()) {
+            double[] top = queue.poll();
+            int state = (int) top[1];
+            if (top[0] > stateCost[state]) {
+                continue;
+            }
+            int id = state / NO_OF_DIR;
+            Direction d = Direction.values()[state % NO_OF_DIR];
+            int row = id / width + d.dRow();
+            int col = id % width + d.dCol();
+            ArrayList<int[]> edges = new ArrayList<int[]>();
+            if (map.checkValidMove(row, col)) {
+                edges.add(new int[]{(row * width + col) * NO_OF_DIR + d.ordinal(), RobotConstants.MOVE_COST});
+            }
+            edges.add(new int[]{id * NO_OF_DIR + Direction.getClockwise(d).ordinal(), RobotConstants.TURN_COST});
+            edges.add(new int[]{id * NO_OF_DIR + Direction.getAntiClockwise(d).ordinal(), RobotConstants.TURN_COST});
+            for (int[] edge : edges) {
+                double cost = top[0] + edge[1];
+                if (cost < stateCost[edge[0]]) {
+                    stateCost[edge[0]] = cost;
+                    queue.add(new double[]{cost, edge[0]});
+                }
+            }
+        }
+        return stateCost;
+    }
+
+    /**
+     * Cost of driving along the cells of a path from start facing dir, turning the shorter way before each move.
+     * Fails if a step is not to the next cell, onto a cell the robot cannot move to, or the path does not end at goal.
+     */
+    static double pathCost(Map map, Point start, Direction dir, Point goal, ArrayList<Cell> path) {
+        double cost = 0;
+        Point pos = start;
+        for (Cell cell : path) {
+            Point next = cell.getPos();
+            assertEquals(1, Math.abs(next.x - pos.x) + Math.abs(next.y - pos.y), "step from " + pos + " to " + next);
+            assertTrue(map.checkValidMove(next.y, next.x), "cell " + next + " is not movable");
+            Direction moveDir = map.getCellDir(pos, next);
+            int turns = Math.abs(moveDir.ordinal() - dir.ordinal());
+            cost += RobotConstants.MOVE_COST + RobotConstants.TURN_COST * Math.min(turns, NO_OF_DIR - turns);
+            dir = moveDir;
+            pos = next;
+        }
+        assertEquals(goal, pos, "path end");
+        return cost;
+    }
+
+    //Movable cells of the map
+    static ArrayList<Point> movableCells(Map map) {
+        ArrayList<Point> cells = new ArrayList<Point>();
+        for (int row = 0; row < map.getHeight(); row++) {
+            for (int col = 0; col < map.getWidth(); col++) {
+                if (map.checkValidMove(row, col)) {
+                    cells.add(new Point(col, row));
+                }
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,165 @@
+package Algorithm;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Map.*;
+import Robot.RobotConstants;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tour costs here follow the planner's model: the path to each target, the right turns to face its surface and the
+ * capture, then the path home.
+ */
+class SurfaceTourPlannerTest {
+
+    private static final Point HOME = new Point(1, 1);
+    private static final double CAPTURE_COST = 5;
+    private static final int NO_OF_TOURS = 20;
+
+    private Map map;
+    private DistanceTable table;
+    private SurfaceTourPlanner planner;
+    private ArrayList<Point> cells;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        map = TestMaps.load(TestMaps.EXPLORED[0]);
+        table = new DistanceTable(map);
+        planner = new SurfaceTourPlanner(table);
+        cells = ReferenceSearch.movableCells(map);
+        random = new Random(3);
+    }
+
+    //Up to the Held-Karp limit the order must be the cheapest of all orders
+    @Test
+    void smallTourHasLowestCost() {
+        for (int i = 0; i < NO_OF_TOURS; i++) {
+            ArrayList<ObsSurface> targets = getRandomTargets(2 + i % 6);
+            ArrayList<ObsSurface> tour = planner.planTour(HOME, Direction.UP, targets, HOME, CAPTURE_COST, RobotConstants.INFINITE_COST);
+            assertEquals(targets.size(), tour.size());
+            assertTrue(tour.containsAll(targets));
+            assertEquals(getLowestCost(new ArrayList<ObsSurface>(), targets), getTourCost(tour), 1e-9);
+        }
+    }
+
+    //The tour stops at the last target from which the robot still gets home within the budget
+    @Test
+    void tourCutOffAtBudget() {
+        for (int i = 0; i < NO_OF_TOURS; i++) {
+            ArrayList<ObsSurface> targets = getRandomTargets(6);
+            ArrayList<ObsSurface> full = planner.planTour(HOME, Direction.UP, targets, HOME, CAPTURE_COST, RobotConstants.INFINITE_COST);
+            double budget = getTourCost(full) * (i + 1) / (NO_OF_TOURS + 1);
+            ArrayList<ObsSurface> tour = planner.planTour(HOME, Direction.UP, targets, HOME, CAPTURE_COST, budget);
+            assertTrue(getTourCost(tour) <= budget);
+            assertEquals(full.subList(0, tour.size()), tour);
+            if (tour.size() < full.size()) {
+                assertTrue(getTourCost(full.subList(0, tour.size() + 1)) > budget);
+            }
+        }
+    }
+
+    @Test
+    void unreachableTargetsLeftOut() {
+        ArrayList<ObsSurface> unreachable = new ArrayList<ObsSurface>();
+        unreachable.add(new ObsSurface(new Point(0, 0), new Point(0, 0), Direction.UP, Direction.DOWN));
+        unreachable.add(new ObsSurface(new Point(0, 10), new Point(-1, 10), Direction.LEFT, Direction.RIGHT));
+        assertTrue(planner.planTour(HOME, Direction.UP, unreachable, HOME, CAPTURE_COST, RobotConstants.INFINITE_COST).isEmpty());
+
+        ArrayList<ObsSurface> reachable = getRandomTargets(4);
+        ArrayList<ObsSurface> targets = new ArrayList<ObsSurface>(reachable);
+        targets.add(1, unreachable.get(0));
+        targets.add(unreachable.get(1));
+        ArrayList<ObsSurface> tour = planner.planTour(HOME, Direction.UP, targets, HOME, CAPTURE_COST, RobotConstants.INFINITE_COST);
+        assertEquals(reachable.size(), tour.size());
+        assertTrue(tour.containsAll(reachable));
+    }
+
+    //Over the Held-Karp limit, 2-opt must do at least as well as the nearest neighbour order it starts from
+    @Test
+    void largeTourNoWorseThanNearestNeighbour() {
+        for (int i = 0; i < NO_OF_TOURS; i++) {
+            ArrayList<ObsSurface> targets = getRandomTargets(13 + i);
+            ArrayList<ObsSurface> tour = planner.planTour(HOME, Direction.UP, targets, HOME, CAPTURE_COST, RobotConstants.INFINITE_COST);
+            assertEquals(targets.size(), tour.size());
+            assertTrue(tour.containsAll(targets));
+            assertTrue(getTourCost(tour) <= getTourCost(getNearestNeighbourOrder(targets)));
+        }
+    }
+
+    private ArrayList<ObsSurface> getRandomTargets(int n) {
+        ArrayList<ObsSurface> targets = new ArrayList<ObsSurface>();
+        for (int i = 0; i < n; i++) {
+            Point pos = cells.get(random.nextInt(cells.size()));
+            Direction dir = Direction.get(random.nextInt(4));
+            targets.add(new ObsSurface(pos, pos, dir, dir));
+        }
+        return targets;
+    }
+
+    //Lowest cost over every order of the remaining targets, after visiting the targets in done
+    private double getLowestCost(ArrayList<ObsSurface> done, ArrayList<ObsSurface> remaining) {
+        if (remaining.isEmpty()) {
+            return getTourCost(done);
+        }
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < remaining.size(); i++) {
+            ObsSurface target = remaining.remove(i);
+            done.add(target);
+            best = Math.min(best, getLowestCost(done, remaining));
+            done.remove(done.size() - 1);
+            remaining.add(i, target);
+        }
+        return best;
+    }
+
+    private ArrayList<ObsSurface> getNearestNeighbourOrder(ArrayList<ObsSurface> targets) {
+        ArrayList<ObsSurface> remaining = new ArrayList<ObsSurface>(targets);
+        ArrayList<ObsSurface> order = new ArrayList<ObsSurface>();
+        Point pos = HOME;
+        Direction dir = Direction.UP;
+        while (!remaining.isEmpty()) {
+            ObsSurface nearest = null;
+            for (ObsSurface target : remaining) {
+                if (nearest == null || getVisitCost(pos, dir, target) < getVisitCost(pos, dir, nearest)) {
+                    nearest = target;
+                }
+            }
+            remaining.remove(nearest);
+            order.add(nearest);
+            pos = nearest.getTargetPos();
+            dir = nearest.getTargetDir();
+        }
+        return order;
+    }
+
+    private double getTourCost(List<ObsSurface> tour) {
+        double total = 0;
+        Point pos = HOME;
+        Direction dir = Direction.UP;
+        for (ObsSurface target : tour) {
+            total += getVisitCost(pos, dir, target);
+            pos = target.getTargetPos();
+            dir = target.getTargetDir();
+        }
+        return total + table.getCost(pos, dir, HOME);
+    }
+
+    private double getVisitCost(Point pos, Direction dir, ObsSurface target) {
+        Direction arriveDir = table.getEndDirection(pos, dir, target.getTargetPos());
+        Direction turnDir = arriveDir;
+        int rightTurns = 0;
+        while (turnDir != target.getTargetDir()) {
+            turnDir = Direction.getClockwise(turnDir);
+            rightTurns++;
+        }
+        return table.getCost(pos, dir, target.getTargetPos()) + rightTurns * RobotConstants.TURN_COST + CAPTURE_COST;
+    }
+}
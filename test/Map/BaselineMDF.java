@@ -0,0 +1,93 @@
+package Map;
+
+/**
+ * The string based MDF encoder and decoder MapDescriptor had before it worked on bits, kept as the reference for the
+ * tests. Only right for the default 20 x 15 arena, where the bits of part 1 fill the last hex digit.
+ */
+class BaselineMDF {
+
+    static String generateMDFString1(Map map) {
+        StringBuilder MDFcreator1 = new StringBuilder();
+        StringBuilder temp = new StringBuilder();
+        temp.append("11");
+        for (int r = 0; r < map.getHeight(); r++) {
+            for (int c = 0; c < map.getWidth(); c++) {
+                temp.append(map.getCell(r, c).isExplored() ? '1' : '0');
+                if (temp.length() == 4) {
+                    MDFcreator1.append(biToHex(temp.toString()));
+                    temp.setLength(0);
+                }
+            }
+        }
+        temp.append("11");
+        MDFcreator1.append(biToHex(temp.toString()));
+        return MDFcreator1.toString();
+    }
+
+    static String generateMDFString2(Map map) {
+        StringBuilder MDFcreator2 = new StringBuilder();
+        StringBuilder temp = new StringBuilder();
+        for (int r = 0; r < map.getHeight(); r++) {
+            for (int c = 0; c < map.getWidth(); c++) {
+                if (map.getCell(r, c).isExplored()) {
+                    temp.append(map.getCell(r, c).isObstacle() ? '1' : '0');
+                    if (temp.length() == 4) {
+                        MDFcreator2.append(biToHex(temp.toString()));
+                        temp.setLength(0);
+                    }
+                }
+            }
+        }
+        if (temp.length() % 4 != 0) {
+            while (temp.length() % 4 != 0) {
+                temp.append('0');
+            }
+            MDFcreator2.append(biToHex(temp.toString()));
+        }
+        return MDFcreator2.toString();
+    }
+
+    //Load both parts into an empty map, as loadMDFString1 and loadMDFString2 did through a binary string
+    static void load(String MDFstr1, String MDFstr2, Map map) {
+        String expStr = hexToBi(MDFstr1);
+        int index = 2;
+        for (int r = 0; r < map.getHeight(); r++) {
+            for (int c = 0; c < map.getWidth(); c++) {
+                if (expStr.charAt(index) == '1') {
+                    map.getCell(r, c).setExplored(true);
+                }
+                index++;
+            }
+        }
+        String obsStr = hexToBi(MDFstr2);
+        index = 0;
+        for (int r = 0; r < map.getHeight(); r++) {
+            for (int c = 0; c < map.getWidth(); c++) {
+                Cell cell = map.getCell(r, c);
+                if (cell.isExplored()) {
+                    if (obsStr.charAt(index) == '1') {
+                        cell.setObstacle(true);
+                        map.setVirtualWall(cell, true);
+                    }
+                    index++;
+                }
+            }
+        }
+    }
+
+    private static String biToHex(String biStr) {
+        return Integer.toHexString(Integer.parseInt(biStr, 2));
+    }
+
+    private static String hexToBi(String hexStr) {
+        String biStr = "";
+        for (int i = 0; i < hexStr.length(); i++) {
+            String tempBiStr = Integer.toBinaryString(Integer.parseInt(Character.toString(hexStr.charAt(i)), 16));
+            while (tempBiStr.length() % 4 != 0) {
+                tempBiStr = "0" + tempBiStr;
+            }
+            biStr += tempBiStr;
+        }
+        return biStr;
+    }
+}
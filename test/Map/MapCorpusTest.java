@@ -0,0 +1,106 @@
+package Map;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapCorpusTest {
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("corpus", ".mdfc");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        for (String[] filenames : new String[][]{TestMaps.EXPLORED, TestMaps.PARTLY_EXPLORED}) {
+            ArrayList<Map> maps = TestMaps.loadAll(filenames);
+            MapCorpus.write(file.toString(), maps);
+            MapCorpus corpus = new MapCorpus(file.toString());
+            assertEquals(maps.size(), corpus.size());
+            assertEquals(maps.get(0).getHeight(), corpus.getHeight());
+            assertEquals(maps.get(0).getWidth(), corpus.getWidth());
+            for (int i = 0; i < maps.size(); i++) {
+                TestMaps.assertSameCells(maps.get(i), corpus.getMap(i), filenames[i]);
+            }
+        }
+    }
+
+    //A reused map must not keep anything of the map loaded into it before
+    @Test
+    void loadMapReusesMap() throws IOException {
+        ArrayList<Map> maps = TestMaps.loadAll(TestMaps.PARTLY_EXPLORED);
+        maps.addAll(TestMaps.loadAll(TestMaps.EXPLORED));
+        MapCorpus.write(file.toString(), maps);
+        MapCorpus corpus = new MapCorpus(file.toString());
+        Map map = new Map();
+        for (int i = maps.size() - 1; i >= 0; i--) {
+            corpus.loadMap(i, map);
+            TestMaps.assertSameCells(maps.get(i), map, "map " + i);
+        }
+    }
+
+    @Test
+    void otherArenaSize() throws IOException {
+        Map small = new Map(5, 4);
+        small.getCell(1, 2).setExplored(true);
+        small.getCell(3, 1).setExplored(true);
+        small.getCell(3, 1).setObstacle(true);
+        ArrayList<Map> maps = new ArrayList<Map>();
+        maps.add(small);
+        maps.add(new Map(5, 4));
+        MapCorpus.write(file.toString(), maps);
+        MapCorpus corpus = new MapCorpus(file.toString());
+        assertEquals(5, corpus.getHeight());
+        assertEquals(4, corpus.getWidth());
+        TestMaps.assertSameCells(small, corpus.getMap(0), "small");
+        TestMaps.assertSameCells(maps.get(1), corpus.getMap(1), "empty");
+    }
+
+    @Test
+    void rejectsWrongMapOrIndex() throws IOException {
+        MapCorpus.write(file.toString(), TestMaps.loadAll(TestMaps.PARTLY_EXPLORED));
+        MapCorpus corpus = new MapCorpus(file.toString());
+        assertThrows(IllegalArgumentException.class, () -> corpus.loadMap(0, new Map(15, 20)));
+        assertThrows(IndexOutOfBoundsException.class, () -> corpus.getMap(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> corpus.getMap(TestMaps.PARTLY_EXPLORED.length));
+
+        ArrayList<Map> mixed = TestMaps.loadAll(TestMaps.PARTLY_EXPLORED);
+        mixed.add(new Map(15, 20));
+        assertThrows(IllegalArgumentException.class, () -> MapCorpus.write(file.toString(), mixed));
+        assertThrows(IllegalArgumentException.class, () -> MapCorpus.write(file.toString(), new ArrayList<Map>()));
+    }
+
+    @Test
+    void rejectsBadFile() throws IOException {
+        MapCorpus.write(file.toString(), TestMaps.loadAll(TestMaps.EXPLORED));
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        assertThrows(IOException.class, () -> new MapCorpus(file.toString()));
+
+        Files.write(file, new byte[]{'M', 'D', 'F'});
+        assertThrows(IOException.class, () -> new MapCorpus(file.toString()));
+
+        MapCorpus.write(file.toString(), TestMaps.loadAll(TestMaps.EXPLORED));
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.writeInt(0x4d444644);
+        }
+        assertThrows(IOException.class, () -> new MapCorpus(file.toString()));
+    }
+}
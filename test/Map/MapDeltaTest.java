@@ -0,0 +1,215 @@
+package Map;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The receiver here keeps the explored and obstacle flags of every cell. A keyframe sets all of them, a delta sets the
+ * listed cells to the flags the map had when it was sent.
+ */
+class MapDeltaTest {
+
+    private MapDelta delta;
+    private Map map;
+    private Random random;
+    private boolean[] receivedExplored;
+    private boolean[] receivedObstacle;
+
+    @BeforeEach
+    void setUp() {
+        delta = new MapDelta();
+        map = TestMaps.load(TestMaps.PARTLY_EXPLORED[0]);
+        random = new Random(4);
+        receivedExplored = new boolean[map.getHeight() * map.getWidth()];
+        receivedObstacle = new boolean[map.getHeight() * map.getWidth()];
+    }
+
+    @Test
+    void firstUpdateIsKeyframe() {
+        assertTrue(delta.needsKeyframe(map));
+        assertEquals(-1, delta.getBaseSeq());
+        sendKeyframe();
+        //not acknowledged yet, so there is still no base for a delta
+        assertTrue(delta.needsKeyframe(map));
+        delta.acknowledge(0);
+        assertFalse(delta.needsKeyframe(map));
+        assertEquals(0, delta.getBaseSeq());
+        assertEquals(1, delta.getNextSeq());
+    }
+
+    @Test
+    void deltaListsChangedCells() {
+        for (String filename : TestMaps.PARTLY_EXPLORED) {
+            map = TestMaps.load(filename);
+            delta.reset();
+            sendKeyframe();
+            delta.acknowledge(delta.getNextSeq() - 1);
+            int[] changed = changeRandomCells(5);
+            assertArrayEquals(changed, delta.send(map, false), filename);
+            assertArrayEquals(new int[0], delta.send(map, true), filename);
+        }
+    }
+
+    //Only acknowledged updates are relied on, so a receiver that lost some updates is right after the next delta
+    @Test
+    void recoversFromLostUpdates() {
+        sendKeyframe();
+        delta.acknowledge(0);
+        for (int i = 0; i < 50; i++) {
+            if (delta.needsKeyframe(map)) {
+                sendKeyframe();
+                delta.acknowledge(delta.getNextSeq() - 1);
+                continue;
+            }
+            changeRandomCells(3);
+            int seq = delta.getNextSeq();
+            int[] cellIds = delta.send(map, false);
+            assertTrue(cellIds.length >= 3);
+            //every third update is lost, and acknowledgements only come for every other one received
+            if (i % 3 != 2) {
+                apply(cellIds);
+                assertReceived();
+                if (i % 2 == 0) {
+                    delta.acknowledge(seq);
+                }
+            }
+        }
+    }
+
+    //A cell changed and changed back before the receiver acknowledged is listed, in case it applied the change
+    @Test
+    void revertedChangeListed() {
+        sendKeyframe();
+        delta.acknowledge(0);
+        int id = firstUnexplored();
+        map.getCellById(id).setExplored(true);
+        apply(delta.send(map, false));
+        map.getCellById(id).setExplored(false);
+        int[] cellIds = delta.send(map, false);
+        assertArrayEquals(new int[]{id}, cellIds);
+        apply(cellIds);
+        assertReceived();
+    }
+
+    @Test
+    void keyframeAfterInterval() {
+        sendKeyframe();
+        delta.acknowledge(0);
+        for (int i = 0; i < MapDelta.KEYFRAME_INTERVAL; i++) {
+            assertFalse(delta.needsKeyframe(map));
+            changeRandomCells(1);
+            delta.send(map, false);
+            delta.acknowledge(delta.getNextSeq() - 1);
+        }
+        assertTrue(delta.needsKeyframe(map));
+        sendKeyframe();
+        delta.acknowledge(delta.getNextSeq() - 1);
+        assertFalse(delta.needsKeyframe(map));
+    }
+
+    //Once too many updates are waiting for an acknowledgement the next has to be a keyframe, never an empty delta
+    @Test
+    void keyframeAfterTooManyPending() {
+        sendKeyframe();
+        delta.acknowledge(0);
+        //nothing more is acknowledged; the keyframe sent at the interval is not either, so 0 stays the base
+        for (int i = 0; i < 32; i++) {
+            int[] changed = changeRandomCells(1);
+            if (i == MapDelta.KEYFRAME_INTERVAL) {
+                assertTrue(delta.needsKeyframe(map));
+                sendKeyframe();
+                continue;
+            }
+            assertFalse(delta.needsKeyframe(map));
+            int[] cellIds = delta.send(map, false);
+            for (int id : changed) {
+                assertTrue(Arrays.binarySearch(cellIds, id) >= 0, "cell " + id + " not listed");
+            }
+        }
+        assertEquals(0, delta.getBaseSeq());
+        assertTrue(delta.needsKeyframe(map));
+        changeRandomCells(1);
+        assertThrows(IllegalStateException.class, () -> delta.send(map, false));
+        sendKeyframe();
+        delta.acknowledge(delta.getNextSeq() - 1);
+        assertFalse(delta.needsKeyframe(map));
+    }
+
+    @Test
+    void unknownAcknowledgementIgnored() {
+        sendKeyframe();
+        delta.acknowledge(0);
+        changeRandomCells(2);
+        delta.send(map, false);
+        delta.acknowledge(7);
+        assertEquals(0, delta.getBaseSeq());
+        delta.acknowledge(1);
+        //already dropped when 1 was acknowledged
+        delta.acknowledge(0);
+        assertEquals(1, delta.getBaseSeq());
+    }
+
+    @Test
+    void keyframeForOtherMap() {
+        sendKeyframe();
+        delta.acknowledge(0);
+        Map other = TestMaps.load(TestMaps.PARTLY_EXPLORED[1]);
+        assertTrue(delta.needsKeyframe(other));
+        assertThrows(IllegalStateException.class, () -> delta.send(other, false));
+        delta.send(other, true);
+        assertEquals(-1, delta.getBaseSeq());
+        delta.reset();
+        assertTrue(delta.needsKeyframe(map));
+    }
+
+    private void sendKeyframe() {
+        delta.send(map, true);
+        for (int id = 0; id < receivedExplored.length; id++) {
+            receivedExplored[id] = map.getCellById(id).isExplored();
+            receivedObstacle[id] = map.getCellById(id).isObstacle();
+        }
+    }
+
+    private void apply(int[] cellIds) {
+        for (int id : cellIds) {
+            receivedExplored[id] = map.getCellById(id).isExplored();
+            receivedObstacle[id] = map.getCellById(id).isObstacle();
+        }
+    }
+
+    private void assertReceived() {
+        for (int id = 0; id < receivedExplored.length; id++) {
+            assertEquals(map.getCellById(id).isExplored(), receivedExplored[id], "explored " + id);
+            assertEquals(map.getCellById(id).isObstacle(), receivedObstacle[id], "obstacle " + id);
+        }
+    }
+
+    //Explore n unexplored cells, some as obstacles, and return their ids in increasing order
+    private int[] changeRandomCells(int n) {
+        TreeSet<Integer> changed = new TreeSet<Integer>();
+        while (changed.size() < n) {
+            int id = random.nextInt(receivedExplored.length);
+            Cell cell = map.getCellById(id);
+            if (!cell.isExplored()) {
+                cell.setExplored(true);
+                cell.setObstacle(random.nextInt(4) == 0);
+                changed.add(id);
+            }
+        }
+        return changed.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int firstUnexplored() {
+        for (int id = 0; ; id++) {
+            if (!map.getCellById(id).isExplored()) {
+                return id;
+            }
+        }
+    }
+}
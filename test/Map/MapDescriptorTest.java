@@ -0,0 +1,191 @@
+package Map;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapDescriptorTest {
+
+    private Path file;
+    private Random random;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("map", ".txt");
+        random = new Random(6);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    //Saving and loading the map descriptor keeps the explored and obstacle flags, whatever the arena size
+    @Test
+    void roundTripAnyArenaSize() {
+        int[][] sizes = {{3, 3}, {7, 9}, {20, 15}, {21, 33}, {100, 100}};
+        for (int[] size : sizes) {
+            Map map = TestMaps.random(size[0], size[1], random);
+            new MapDescriptor().saveRealMap(map, file.toString());
+            Map loaded = new Map(size[0], size[1]);
+            new MapDescriptor().loadRealMap(loaded, file.toString());
+            TestMaps.assertSameCells(map, loaded, size[0] + " x " + size[1]);
+        }
+    }
+
+    //The encoder must write the digits the old string based generator wrote
+    @Test
+    void encoderMatchesBaseline() {
+        ArrayList<Map> maps = TestMaps.loadAll(TestMaps.EXPLORED);
+        maps.addAll(TestMaps.loadAll(TestMaps.PARTLY_EXPLORED));
+        for (int i = 0; i < 20; i++) {
+            maps.add(TestMaps.random(MapConstants.MAP_HEIGHT, MapConstants.MAP_WIDTH, random));
+        }
+        maps.add(new Map());
+        Map explored = new Map();
+        explored.setAllExplored(true);
+        maps.add(explored);
+
+        char[] out1 = new char[MapDescriptor.getMDFLength1(new Map())];
+        char[] out2 = new char[MapDescriptor.getMDFLength2(new Map())];
+        for (Map map : maps) {
+            String expected1 = BaselineMDF.generateMDFString1(map);
+            String expected2 = BaselineMDF.generateMDFString2(map);
+            assertEquals(expected1, MapDescriptor.generateMDFString1(map));
+            assertEquals(expected2, MapDescriptor.generateMDFString2(map));
+            //the same buffers are reused for every map
+            assertEquals(expected1, new String(out1, 0, MapDescriptor.encodeMDFString1(map, out1)));
+            assertEquals(expected2, new String(out2, 0, MapDescriptor.encodeMDFString2(map, out2)));
+        }
+    }
+
+    //The sample files were written by the old generator, so encoding a loaded sample gives back its lines
+    @Test
+    void encodesSampleFiles() throws IOException {
+        for (String filename : TestMaps.EXPLORED) {
+            List<String> lines = Files.readAllLines(Paths.get(filename));
+            Map map = TestMaps.load(filename);
+            assertEquals(lines.get(0).trim().toLowerCase(), MapDescriptor.generateMDFString1(map), filename);
+            assertEquals(lines.get(1).trim().toLowerCase(), MapDescriptor.generateMDFString2(map), filename);
+        }
+    }
+
+    //Loading a descriptor gives the same map as the old decoder, which went through a binary string
+    @Test
+    void decoderMatchesBaseline() throws IOException {
+        ArrayList<String[]> descriptors = new ArrayList<String[]>();
+        for (String[] filenames : new String[][]{TestMaps.EXPLORED, TestMaps.PARTLY_EXPLORED}) {
+            for (String filename : filenames) {
+                List<String> lines = Files.readAllLines(Paths.get(filename));
+                descriptors.add(new String[]{lines.get(0).trim(), lines.get(1).trim()});
+            }
+        }
+        for (int i = 0; i < 20; i++) {
+            Map map = TestMaps.random(MapConstants.MAP_HEIGHT, MapConstants.MAP_WIDTH, random);
+            String str1 = BaselineMDF.generateMDFString1(map);
+            String str2 = BaselineMDF.generateMDFString2(map);
+            //upper case digits are read the same
+            descriptors.add(i % 2 == 0 ? new String[]{str1, str2} : new String[]{str1.toUpperCase(), str2.toUpperCase()});
+        }
+        for (String[] descriptor : descriptors) {
+            Files.write(file, (descriptor[0] + "\n" + descriptor[1] + "\n").getBytes());
+            Map loaded = new Map();
+            new MapDescriptor().loadRealMap(loaded, file.toString());
+            Map expected = new Map();
+            BaselineMDF.load(descriptor[0], descriptor[1], expected);
+            TestMaps.assertSameCells(expected, loaded, descriptor[0]);
+        }
+    }
+
+    @Test
+    void rejectsInvalidHexDigit() throws IOException {
+        Files.write(file, "fffg\n0\n".getBytes());
+        assertThrows(NumberFormatException.class, () -> new MapDescriptor().loadRealMap(new Map(), file.toString()));
+        Files.write(file, "ff\n0x\n".getBytes());
+        assertThrows(NumberFormatException.class, () -> new MapDescriptor().loadRealMap(new Map(), file.toString()));
+    }
+
+    //A descriptor shorter than the arena loads the cells it has and leaves the rest unexplored
+    @Test
+    void shortDescriptorLeavesRestUnexplored() throws IOException {
+        Files.write(file, "ff\nc\n".getBytes());
+        Map map = new Map();
+        new MapDescriptor().loadRealMap(map, file.toString());
+        assertEquals(6, map.getExploredCount());
+        for (int r = 0; r < map.getHeight(); r++) {
+            for (int c = 0; c < map.getWidth(); c++) {
+                assertEquals(r == 0 && c < 6, map.getCell(r, c).isExplored(), r + ", " + c);
+                assertEquals(r == 0 && c < 2, map.getCell(r, c).isObstacle(), r + ", " + c);
+            }
+        }
+    }
+
+    //The live strings follow every change of the map, one cell at a time
+    @Test
+    void liveStringsFollowChanges() {
+        Map map = TestMaps.random(MapConstants.MAP_HEIGHT, MapConstants.MAP_WIDTH, random);
+        MapDescriptor mdf = new MapDescriptor();
+        assertLiveStrings(mdf, map);
+        for (int i = 0; i < 2000; i++) {
+            changeRandomCell(map);
+            assertLiveStrings(mdf, map);
+            //asking again without a change gives the same strings
+            assertLiveStrings(mdf, map);
+        }
+    }
+
+    //A reset of the map, more changes than the change log keeps, and another map make the strings be encoded again
+    @Test
+    void liveStringsAfterResetOverflowAndOtherMap() {
+        Map map = TestMaps.random(MapConstants.MAP_HEIGHT, MapConstants.MAP_WIDTH, random);
+        MapDescriptor mdf = new MapDescriptor();
+        assertLiveStrings(mdf, map);
+
+        map.resetMap();
+        assertLiveStrings(mdf, map);
+        map.setAllExplored(true);
+        assertLiveStrings(mdf, map);
+
+        for (int i = 0; i < 3000; i++) {
+            changeRandomCell(map);
+        }
+        assertLiveStrings(mdf, map);
+
+        Map other = TestMaps.random(MapConstants.MAP_HEIGHT, MapConstants.MAP_WIDTH, random);
+        for (int i = 0; i < 10; i++) {
+            Map current = i % 2 == 0 ? other : map;
+            changeRandomCell(current);
+            assertLiveStrings(mdf, current);
+        }
+
+        //part 1 of another arena size has another length
+        Map small = TestMaps.random(7, 9, random);
+        assertEquals(MapDescriptor.generateMDFString1(small), mdf.getMDFString1(small));
+        assertEquals(MapDescriptor.generateMDFString2(small), mdf.getMDFString2(small));
+    }
+
+    private void changeRandomCell(Map map) {
+        Cell cell = map.getCell(random.nextInt(map.getHeight()), random.nextInt(map.getWidth()));
+        if (random.nextBoolean()) {
+            cell.setExplored(!cell.isExplored());
+        }
+        else {
+            cell.setObstacle(!cell.isObstacle());
+        }
+    }
+
+    private static void assertLiveStrings(MapDescriptor mdf, Map map) {
+        assertEquals(BaselineMDF.generateMDFString1(map), mdf.getMDFString1(map));
+        assertEquals(BaselineMDF.generateMDFString2(map), mdf.getMDFString2(map));
+    }
+}
@@ -0,0 +1,526 @@
+package Map;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The map against plain per-cell models of what the grid of Cell objects it replaced would hold.
+ */
+class MapTest {
+
+    private static final int NO_OF_CHANGES = 5000;
+
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        random = new Random(5);
+    }
+
+    //Flags written through cell views read back as written, on the default arena and one of several ragged tiles
+    @Test
+    void flagsReadBackAsWritten() {
+        for (Map map : new Map[]{new Map(), new Map(37, 41)}) {
+            int height = map.getHeight();
+            int width = map.getWidth();
+            boolean[][] explored = new boolean[height][width];
+            boolean[][] moveThru = new boolean[height][width];
+            boolean[][] path = new boolean[height][width];
+            boolean[][] virtualWall = new boolean[height][width];
+            for (int row = 0; row < height; row++) {
+                for (int col = 0; col < width; col++) {
+                    virtualWall[row][col] = row == 0 || col == 0 || row == height - 1 || col == width - 1;
+                }
+            }
+            for (int i = 0; i < NO_OF_CHANGES; i++) {
+                int row = random.nextInt(height);
+                int col = random.nextInt(width);
+                boolean value = random.nextBoolean();
+                Cell cell = map.getCell(row, col);
+                switch (random.nextInt(4)) {
+                    case 0:
+                        cell.setExplored(value);
+                        explored[row][col] = value;
+                        break;
+                    case 1:
+                        cell.setMoveThru(value);
+                        moveThru[row][col] = value;
+                        break;
+                    case 2:
+                        cell.setPath(value);
+                        path[row][col] = value;
+                        break;
+                    default:
+                        cell.setVirtualWall(value);
+                        virtualWall[row][col] = value;
+                        break;
+                }
+            }
+            for (int row = 0; row < height; row++) {
+                for (int col = 0; col < width; col++) {
+                    Cell cell = map.getCell(row, col);
+                    String message = String.format("cell (%d, %d) of %d x %d", row, col, height, width);
+                    assertEquals(explored[row][col], cell.isExplored(), message);
+                    assertEquals(moveThru[row][col], cell.isMoveThru(), message);
+                    assertEquals(path[row][col], cell.isPath(), message);
+                    assertEquals(virtualWall[row][col], cell.isVirtualWall(), message);
+                    assertFalse(cell.isObstacle(), message);
+                    assertEquals(explored[row][col] && !virtualWall[row][col], map.checkValidMove(row, col), message);
+                }
+            }
+
+            map.setAllExplored(true);
+            map.setAllMoveThru(true);
+            map.removePaths();
+            for (int id = 0; id < height * width; id++) {
+                Cell cell = map.getCellById(id);
+                assertTrue(cell.isExplored() && cell.isMoveThru() && !cell.isPath(), "cell " + id);
+            }
+            map.setAllExplored(false);
+            map.setAllMoveThru(false);
+            for (int id = 0; id < height * width; id++) {
+                assertFalse(map.getCellById(id).isExplored() || map.getCellById(id).isMoveThru(), "cell " + id);
+            }
+        }
+    }
+
+    //The explored count kept on every change must equal counting the explored cells, whatever changed them
+    @Test
+    void exploredCountMatchesCells() throws IOException {
+        Map map = new Map();
+        assertExploredCount(map);
+        for (int i = 0; i < NO_OF_CHANGES; i++) {
+            Cell cell = map.getCell(random.nextInt(map.getHeight()), random.nextInt(map.getWidth()));
+            cell.setExplored(random.nextBoolean());
+            if (i % 100 == 0) {
+                assertExploredCount(map);
+            }
+        }
+        assertExploredCount(map);
+        map.setAllExplored(true);
+        assertExploredCount(map);
+        map.getCell(3, 4).setExplored(false);
+        assertExploredCount(map);
+        map.setAllExplored(false);
+        assertExploredCount(map);
+        map.getCell(3, 4).setExplored(true);
+        map.resetMap();
+        assertExploredCount(map);
+
+        for (String filename : TestMaps.PARTLY_EXPLORED) {
+            map = TestMaps.load(filename);
+            assertExploredCount(map);
+            Path file = Files.createTempFile("corpus", ".mdfc");
+            try {
+                MapCorpus.write(file.toString(), Collections.singletonList(map));
+                Map loaded = new Map();
+                loaded.setAllExplored(true);
+                new MapCorpus(file.toString()).loadMap(0, loaded);
+                assertExploredCount(loaded);
+                assertEquals(map.getExploredCount(), loaded.getExploredCount(), filename);
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    //The virtual wall kept up to date on each obstacle change must equal a full rebuild from the obstacles
+    @Test
+    void virtualWallMatchesFullRebuild() {
+        ArrayList<Map> maps = TestMaps.loadAll(TestMaps.EXPLORED);
+        maps.addAll(TestMaps.loadAll(TestMaps.PARTLY_EXPLORED));
+        maps.add(new Map(37, 41));
+        for (Map map : maps) {
+            assertVirtualWall(map);
+            for (int i = 0; i < NO_OF_CHANGES; i++) {
+                Cell cell = map.getCell(random.nextInt(map.getHeight()), random.nextInt(map.getWidth()));
+                boolean obstacle = random.nextInt(3) != 0 ? !cell.isObstacle() : cell.isObstacle();
+                cell.setExplored(true);
+                cell.setObstacle(obstacle);
+                //as the sensor readings do, also set or clear the wall around the cell
+                if (random.nextBoolean()) {
+                    map.setVirtualWall(cell, obstacle);
+                }
+                if (i % 100 == 0) {
+                    assertVirtualWall(map);
+                }
+            }
+            assertVirtualWall(map);
+            map.reinitializeVirtualWall();
+            assertVirtualWall(map);
+        }
+    }
+
+    @Test
+    void arenaSizeSetAtRuntime() {
+        int[][] sizes = {{3, 3}, {7, 9}, {20, 15}, {100, 100}, {500, 500}};
+        for (int[] size : sizes) {
+            int height = size[0];
+            int width = size[1];
+            Map map = new Map(height, width);
+            String name = height + " x " + width;
+            assertEquals(height, map.getHeight(), name);
+            assertEquals(width, map.getWidth(), name);
+            assertEquals(new Point(width - 2, height - 2), map.getGoalZone(), name);
+            assertTrue(map.checkValidCell(height - 1, width - 1), name);
+            assertFalse(map.checkValidCell(height, width - 1), name);
+            assertFalse(map.checkValidCell(height - 1, width), name);
+            assertTrue(map.getCell(height - 1, width / 2).isVirtualWall(), name);
+            assertTrue(map.getCell(height / 2, width - 1).isVirtualWall(), name);
+            assertFalse(map.getCell(1, 1).isVirtualWall(), name);
+
+            //the far corner holds flags like any other cell
+            Cell corner = map.getCell(height - 2, width - 2);
+            corner.setExplored(true);
+            assertTrue(corner.isExplored(), name);
+            assertEquals(1, map.getExploredCount(), name);
+            assertEquals(map.getCellId(height - 2, width - 2), map.getNeighbourId(map.getCellId(height - 3, width - 2), Direction.UP), name);
+        }
+        assertEquals(MapConstants.MAP_HEIGHT, new Map().getHeight());
+        assertEquals(MapConstants.MAP_WIDTH, new Map().getWidth());
+        assertThrows(IllegalArgumentException.class, () -> new Map(2, 10));
+        assertThrows(IllegalArgumentException.class, () -> new Map(10, 2));
+    }
+
+    //Only the tiles on the edge (for its virtual wall) and those with explored cells are allocated
+    @Test
+    void tilesAllocatedAsExplored() {
+        Map map = new Map(500, 500);
+        int tilesPerSide = (500 + CellStore.TILE_SIZE - 1) / CellStore.TILE_SIZE;
+        int edgeTiles = 4 * tilesPerSide - 4;
+        assertEquals(edgeTiles, map.getNoOfTiles());
+        map.setAllExplored(false);
+        map.setAllMoveThru(false);
+        map.removePaths();
+        assertEquals(edgeTiles, map.getNoOfTiles());
+        assertNull(map.nearestExploredCell(new Point(250, 250), new Point(250, 250)));
+
+        //a 3 x 3 block inside one tile, then one across the corner of four tiles
+        for (int row = 249; row <= 251; row++) {
+            for (int col = 249; col <= 251; col++) {
+                map.getCell(row, col).setExplored(true);
+            }
+        }
+        assertEquals(edgeTiles + 1, map.getNoOfTiles());
+        for (int row = 255; row <= 256; row++) {
+            for (int col = 255; col <= 256; col++) {
+                map.getCell(row, col).setExplored(true);
+            }
+        }
+        assertEquals(edgeTiles + 4, map.getNoOfTiles());
+        map.getCell(100, 100).setObstacle(false);
+        assertEquals(edgeTiles + 4, map.getNoOfTiles());
+
+        map.resetMap();
+        assertEquals(edgeTiles, map.getNoOfTiles());
+        assertEquals(0, map.getExploredCount());
+        map.setAllExplored(true);
+        assertEquals(tilesPerSide * tilesPerSide, map.getNoOfTiles());
+    }
+
+    //The 3 x 3 area moved through is clipped to the arena, at every edge and corner
+    @Test
+    void moveThroughClippedToArena() {
+        Map map = new Map(17, 18);
+        for (int row = 0; row < map.getHeight(); row += map.getHeight() - 1) {
+            for (int col = 0; col < map.getWidth(); col += map.getWidth() - 1) {
+                assertTrue(map.areaMoveThru(row, col));
+                map.setPassThru(row, col);
+                assertFalse(map.areaMoveThru(row, col), row + ", " + col);
+            }
+        }
+        int moveThru = 0;
+        for (int id = 0; id < map.getHeight() * map.getWidth(); id++) {
+            moveThru += map.getCellById(id).isMoveThru() ? 1 : 0;
+        }
+        assertEquals(4 * 4, moveThru);
+        map.setPassThru(8, 16);
+        assertFalse(map.areaMoveThru(8, 16));
+        assertTrue(map.areaMoveThru(8, 14));
+    }
+
+    //Neighbour ids filled into a buffer must be the cells the old getNeighbours found from Points, in the same order
+    @Test
+    void neighbourIdsMatchPointNeighbours() {
+        ArrayList<Map> maps = TestMaps.loadAll(TestMaps.EXPLORED);
+        maps.addAll(TestMaps.loadAll(TestMaps.PARTLY_EXPLORED));
+        maps.add(TestMaps.random(37, 41, random));
+        int[] ids = new int[4];
+        for (Map map : maps) {
+            for (int row = 0; row < map.getHeight(); row++) {
+                for (int col = 0; col < map.getWidth(); col++) {
+                    ArrayList<Integer> expected = new ArrayList<Integer>();
+                    for (Point p : new Point[]{new Point(col, row + 1), new Point(col, row - 1), new Point(col - 1, row), new Point(col + 1, row)}) {
+                        if (map.checkValidMove(p.y, p.x)) {
+                            expected.add(map.getCellId(p.y, p.x));
+                        }
+                    }
+                    int id = map.getCellId(row, col);
+                    int count = map.getNeighbourIds(id, ids);
+                    ArrayList<Integer> actual = new ArrayList<Integer>();
+                    for (int i = 0; i < count; i++) {
+                        actual.add(ids[i]);
+                    }
+                    String message = String.format("cell (%d, %d)", row, col);
+                    assertEquals(expected, actual, message);
+                    ArrayList<Integer> fromCells = new ArrayList<Integer>();
+                    for (Cell cell : map.getNeighbours(map.getCell(row, col))) {
+                        fromCells.add(map.getCellId(cell.getPos().y, cell.getPos().x));
+                    }
+                    assertEquals(expected, fromCells, message);
+
+                    for (Direction dir : Direction.values()) {
+                        Point next = map.getNeighbour(new Point(col, row), dir);
+                        //UP is the next row, as in the old switch
+                        Point offset = dir == Direction.UP ? new Point(0, 1) : dir == Direction.DOWN ? new Point(0, -1)
+                                : dir == Direction.LEFT ? new Point(-1, 0) : new Point(1, 0);
+                        assertEquals(new Point(col + offset.x, row + offset.y), next, message);
+                        int expectedId = map.checkValidCell(next.y, next.x) ? map.getCellId(next.y, next.x) : -1;
+                        assertEquals(expectedId, map.getNeighbourId(id, dir), message + " " + dir);
+                    }
+                }
+            }
+        }
+    }
+
+    //The clear bit kept on every change must equal checking the 3x3 area, as clearForRobot used to
+    @Test
+    void clearForRobotMatchesArea() throws IOException {
+        ArrayList<Map> maps = TestMaps.loadAll(TestMaps.EXPLORED);
+        maps.addAll(TestMaps.loadAll(TestMaps.PARTLY_EXPLORED));
+        maps.add(new Map(37, 41));
+        for (Map map : maps) {
+            assertClearance(map);
+            for (int i = 0; i < NO_OF_CHANGES; i++) {
+                Cell cell = map.getCell(random.nextInt(map.getHeight()), random.nextInt(map.getWidth()));
+                if (random.nextBoolean()) {
+                    cell.setExplored(random.nextInt(4) != 0);
+                }
+                else {
+                    cell.setObstacle(random.nextInt(4) == 0);
+                }
+                if (i % 250 == 0) {
+                    assertClearance(map);
+                }
+            }
+            assertClearance(map);
+            map.setAllExplored(true);
+            assertClearance(map);
+            map.setAllExplored(false);
+            assertClearance(map);
+        }
+
+        Map map = TestMaps.load(TestMaps.PARTLY_EXPLORED[0]);
+        Path file = Files.createTempFile("corpus", ".mdfc");
+        try {
+            MapCorpus.write(file.toString(), Collections.singletonList(map));
+            Map loaded = TestMaps.load(TestMaps.EXPLORED[0]);
+            new MapCorpus(file.toString()).loadMap(0, loaded);
+            assertClearance(loaded);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    //The tile ring searches must find the cell a scan of every cell finds, with the same ties
+    @Test
+    void nearestCellsMatchScan() {
+        ArrayList<Map> maps = TestMaps.loadAll(TestMaps.PARTLY_EXPLORED);
+        for (int unexploredOneIn : new int[]{2, 50, 2000}) {
+            Map map = new Map(100, 120);
+            for (int id = 0; id < 100 * 120; id++) {
+                Cell cell = map.getCellById(id);
+                cell.setExplored(random.nextInt(unexploredOneIn) != 0);
+                cell.setObstacle(cell.isExplored() && random.nextInt(30) == 0);
+                cell.setMoveThru(random.nextInt(3) != 0);
+            }
+            maps.add(map);
+        }
+        maps.add(new Map(40, 40));
+        for (Map map : maps) {
+            for (int i = 0; i < 50; i++) {
+                Point loc = new Point(random.nextInt(map.getWidth()), random.nextInt(map.getHeight()));
+                Point botLoc = new Point(random.nextInt(map.getWidth()), random.nextInt(map.getHeight()));
+                String message = map.getHeight() + " x " + map.getWidth() + " from " + loc;
+                assertEquals(scanNearestUnexplored(map, loc), map.nearestUnexploredCell(loc), message);
+                assertEquals(scanNearestExplored(map, loc, botLoc), map.nearestExploredCell(loc, botLoc), message);
+            }
+        }
+        Map explored = new Map();
+        explored.setAllExplored(true);
+        assertNull(explored.nearestUnexploredCell(new Point(3, 3)));
+    }
+
+    @Test
+    void wayPointOnlyOnMovableCell() {
+        Map map = TestMaps.load(TestMaps.EXPLORED[0]);
+        for (int row = 0; row < map.getHeight(); row++) {
+            for (int col = 0; col < map.getWidth(); col++) {
+                assertEquals(map.checkValidMove(row, col), map.getCell(row, col).setWayPoint(true));
+            }
+        }
+    }
+
+    //Cells are views, so two views of a cell are equal and a cell of another map is not
+    @Test
+    void cellViewsOfSameCellEqual() {
+        Map map = new Map();
+        Map other = new Map();
+        for (int id = 0; id < map.getHeight() * map.getWidth(); id++) {
+            Cell cell = map.getCellById(id);
+            Cell view = map.getCell(cell.getPos());
+            assertEquals(cell, view);
+            assertEquals(cell.hashCode(), view.hashCode());
+            assertEquals(id, map.getCellId(cell.getPos().y, cell.getPos().x));
+            assertNotEquals(cell, other.getCellById(id));
+            cell.setExplored(true);
+            assertTrue(view.isExplored());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> map.getCell(20, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> map.getCell(0, -1));
+    }
+
+    //Reading and writing flags by row and col gives the same map as going through Cell views
+    @Test
+    void rowColAccessorsMatchCellViews() {
+        Map byCell = new Map();
+        Map byRowCol = new Map();
+        for (int i = 0; i < NO_OF_CHANGES; i++) {
+            int row = random.nextInt(byCell.getHeight());
+            int col = random.nextInt(byCell.getWidth());
+            boolean value = random.nextBoolean();
+            switch (random.nextInt(3)) {
+                case 0:
+                    byCell.getCell(row, col).setExplored(value);
+                    byRowCol.setExplored(row, col, value);
+                    break;
+                case 1:
+                    byCell.getCell(row, col).setObstacle(value);
+                    byCell.setVirtualWall(byCell.getCell(row, col), value);
+                    byRowCol.setObstacle(row, col, value);
+                    byRowCol.setVirtualWall(row, col, value);
+                    break;
+                default:
+                    byCell.getCell(row, col).setMoveThru(value);
+                    byCell.getCell(row, col).setPath(!value);
+                    byRowCol.getCell(row, col).setMoveThru(value);
+                    byRowCol.getCell(row, col).setPath(!value);
+                    break;
+            }
+        }
+        assertEquals(byCell.getChangeCount(), byRowCol.getChangeCount());
+        TestMaps.assertSameCells(byCell, byRowCol, "row and col");
+        for (int r = 0; r < byCell.getHeight(); r++) {
+            for (int c = 0; c < byCell.getWidth(); c++) {
+                Cell cell = byRowCol.getCell(r, c);
+                assertEquals(cell.isExplored(), byRowCol.isExplored(r, c));
+                assertEquals(cell.isObstacle(), byRowCol.isObstacle(r, c));
+                assertEquals(cell.isMoveThru(), byRowCol.isMoveThru(r, c));
+                assertEquals(cell.isPath(), byRowCol.isPath(r, c));
+            }
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> byRowCol.isObstacle(20, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> byRowCol.setExplored(0, 15, true));
+    }
+
+    //Scan every cell for the nearest unexplored one, keeping the first (lowest id) of equally near cells
+    private static Cell scanNearestUnexplored(Map map, Point loc) {
+        Cell nearest = null;
+        double dist = Double.MAX_VALUE;
+        for (int row = 0; row < map.getHeight(); row++) {
+            for (int col = 0; col < map.getWidth(); col++) {
+                Cell cell = map.getCell(row, col);
+                if (!cell.isExplored() && loc.distance(cell.getPos()) < dist) {
+                    nearest = cell;
+                    dist = loc.distance(cell.getPos());
+                }
+            }
+        }
+        return nearest;
+    }
+
+    //Scan every cell the robot can stand on and not yet moved through for the nearest to loc, then to botLoc
+    private static Cell scanNearestExplored(Map map, Point loc, Point botLoc) {
+        Cell nearest = null;
+        double dist = Double.MAX_VALUE;
+        double botDist = Double.MAX_VALUE;
+        for (int row = 0; row < map.getHeight(); row++) {
+            for (int col = 0; col < map.getWidth(); col++) {
+                Cell cell = map.getCell(row, col);
+                if (map.checkValidMove(row, col) && map.clearForRobot(row, col) && map.areaMoveThru(row, col)) {
+                    double d = loc.distance(cell.getPos());
+                    double botD = botLoc.distance(cell.getPos());
+                    if (d < dist || d == dist && botD < botDist) {
+                        nearest = cell;
+                        dist = d;
+                        botDist = botD;
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    private static void assertClearance(Map map) {
+        for (int row = 0; row < map.getHeight(); row++) {
+            for (int col = 0; col < map.getWidth(); col++) {
+                boolean clear = true;
+                for (int r = row - 1; r <= row + 1; r++) {
+                    for (int c = col - 1; c <= col + 1; c++) {
+                        if (!map.checkValidCell(r, c) || !map.getCell(r, c).isExplored() || map.getCell(r, c).isObstacle()) {
+                            clear = false;
+                        }
+                    }
+                }
+                assertEquals(clear, map.clearForRobot(row, col), String.format("cell (%d, %d)", row, col));
+            }
+        }
+        assertFalse(map.clearForRobot(-1, 1));
+        assertFalse(map.clearForRobot(1, map.getWidth()));
+    }
+
+    //Check the obstacle count of every cell and its virtual wall against counting the obstacles of its 3x3 area
+    private static void assertVirtualWall(Map map) {
+        boolean[] full = map.getFullVirtualWall();
+        for (int row = 0; row < map.getHeight(); row++) {
+            for (int col = 0; col < map.getWidth(); col++) {
+                int count = 0;
+                for (int r = row - 1; r <= row + 1; r++) {
+                    for (int c = col - 1; c <= col + 1; c++) {
+                        if (map.checkValidCell(r, c) && map.getCell(r, c).isObstacle()) {
+                            count++;
+                        }
+                    }
+                }
+                boolean border = row == 0 || col == 0 || row == map.getHeight() - 1 || col == map.getWidth() - 1;
+                String message = String.format("cell (%d, %d)", row, col);
+                assertEquals(count, map.store.getObstacleRefs(row, col), message);
+                assertEquals(border || count > 0, full[map.getCellId(row, col)], message);
+                assertEquals(full[map.getCellId(row, col)], map.getCell(row, col).isVirtualWall(), message);
+            }
+        }
+    }
+
+    private static void assertExploredCount(Map map) {
+        int count = 0;
+        for (int row = 0; row < map.getHeight(); row++) {
+            for (int col = 0; col < map.getWidth(); col++) {
+                if (map.getCell(row, col).isExplored()) {
+                    count++;
+                }
+            }
+        }
+        assertEquals(count, map.getExploredCount());
+        assertEquals(100.0 * count / (map.getHeight() * map.getWidth()), map.getExploredPercentage(), 1e-9);
+    }
+}
@@ -0,0 +1,73 @@
+package Map;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Arenas loaded from the sample map files, for the tests. File names are relative to the project directory.
+ */
+public class TestMaps {
+
+    //Fully explored arenas
+    public static final String[] EXPLORED = {
+            "defaultMap.txt",
+            "src/Map/MapSamples/Old/Map Sample 1.txt",
+            "src/Map/MapSamples/Old/Map Sample 2.txt",
+            "src/Map/MapSamples/Old/Map Sample 3.txt",
+            "src/Map/MapSamples/Old/Map Sample 4.txt",
+            "src/Map/MapSamples/Old/Map Sample 5.txt",
+            "src/Map/MapSamples/Old/Test Map 2.txt",
+            "src/Map/MapSamples/Old/Week 10 Run.txt"
+    };
+
+    //Arenas only partly explored, as during exploration
+    public static final String[] PARTLY_EXPLORED = {
+            "src/Map/MapSamples/Old/SCs_Map_1.txt",
+            "src/Map/MapSamples/Old/SCs_Map_4.txt",
+            "src/Map/MapSamples/Old/SCs_Map_11.txt"
+    };
+
+    public static Map load(String filename) {
+        Map map = new Map();
+        new MapDescriptor().loadRealMap(map, filename);
+        return map;
+    }
+
+    public static ArrayList<Map> loadAll(String[] filenames) {
+        ArrayList<Map> maps = new ArrayList<Map>();
+        for (String filename : filenames) {
+            maps.add(load(filename));
+        }
+        return maps;
+    }
+
+    //Arena with most cells explored and some of those obstacles, at random
+    public static Map random(int height, int width, Random random) {
+        Map map = new Map(height, width);
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                if (random.nextInt(4) != 0) {
+                    map.getCell(row, col).setExplored(true);
+                    map.getCell(row, col).setObstacle(random.nextInt(6) == 0);
+                }
+            }
+        }
+        return map;
+    }
+
+    //Check that two maps have the same explored, obstacle and virtual wall flags
+    public static void assertSameCells(Map expected, Map actual, String name) {
+        for (int row = 0; row < expected.getHeight(); row++) {
+            for (int col = 0; col < expected.getWidth(); col++) {
+                Cell e = expected.getCell(row, col);
+                Cell a = actual.getCell(row, col);
+                String message = String.format("%s cell (%d, %d)", name, row, col);
+                assertEquals(e.isExplored(), a.isExplored(), "explored " + message);
+                assertEquals(e.isObstacle(), a.isObstacle(), "obstacle " + message);
+                assertEquals(e.isVirtualWall(), a.isVirtualWall(), "virtual wall " + message);
+            }
+        }
+    }
+}